@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.analysis.ja.IterationMarkCharFilter;
+import org.codelibs.analysis.ja.JapaneseNormalizationCharFilter;
+import org.codelibs.analysis.ja.ProlongedSoundMarkCharFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Japanese character filters on modern Japanese text. The {@code chars} counter reports
+ * the number of characters read per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharFilterBenchmark {
+
+    @Param({ "ProlongedSoundMarkCharFilter", "IterationMarkCharFilter", "JapaneseNormalizationCharFilter", "chain" })
+    public String filter;
+
+    @Param({ "100000" })
+    public int length;
+
+    private String text;
+
+    private final char[] buffer = new char[4096];
+
+    @Setup
+    public void setup() {
+        text = Corpus.modernJapanese(length, 0L);
+    }
+
+    @Benchmark
+    public int read(final Throughput throughput) throws IOException {
+        return throughput.consume(create(new StringReader(text)), buffer);
+    }
+
+    private Reader create(final Reader in) {
+        return switch (filter) {
+        case "ProlongedSoundMarkCharFilter" -> new ProlongedSoundMarkCharFilter(in);
+        case "IterationMarkCharFilter" -> new IterationMarkCharFilter(in);
+        case "JapaneseNormalizationCharFilter" -> new JapaneseNormalizationCharFilter(in);
+        case "chain" -> new IterationMarkCharFilter(new ProlongedSoundMarkCharFilter(in));
+        default -> throw new IllegalArgumentException("Unknown filter: " + filter);
+        };
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.util.Random;
+
+/**
+ * Reproducible synthetic corpora for the benchmarks.
+ */
+public final class Corpus {
+
+    /** Fragments of Meiji-era literary Japanese, where iteration marks are common */
+    private static final String[] LITERARY_JAPANESE = { "人々は", "時々", "我々の", "各々", "様々な", "日々", "こゝろ", "學問のすゝめ", "たゞ", "いすゞ", "ほゞ", "あゝ", "みすゞ",
+            "バナヽ", "ミヽ", "云ふ", "ことゝ", "なれども", "其處に", "明々白々", "部分々々", "複々々線", "屡〻", "各〻", "、", "。", "\n" };
+
+    /** Fragments of modern Japanese, with prolonged sound marks typed as various dashes */
+    private static final String[] MODERN_JAPANESE = { "東京で", "会議を", "開催します", "コンピュ-タ", "サ-バ", "デ-タベ－ス", "ス―パ―", "ユーザー", "時々", "人々の",
+            "システムは", "検索エンジン", "設計書", "二千二十五年", "百円", "10個", "Lucene", "API", "ありがと-", "、", "。", "\n" };
+
+    /** Japanese tokens with IPADIC part-of-speech tags, as produced by a morphological analyzer */
+    private static final Token[] JAPANESE_TOKENS = { //
+            token("東京", "名詞-固有名詞-地域-一般"), token("会議", "名詞-サ変接続"), token("設計", "名詞-サ変接続"), token("詳細", "名詞-形容動詞語幹"),
+            token("歯科", "名詞-一般"), token("医院", "名詞-一般"), token("衛生", "名詞-一般"), token("士", "名詞-接尾-一般"), token("情報", "名詞-一般"),
+            token("検索", "名詞-サ変接続"), token("システム", "名詞-一般"), token("コンピューター", "名詞-一般"), token("データ", "名詞-一般"),
+            token("は", "助詞-係助詞"), token("の", "助詞-連体化"), token("を", "助詞-格助詞-一般"), token("に", "助詞-格助詞-一般"), token("が", "助詞-格助詞-一般"),
+            token("です", "助動詞"), token("ます", "助動詞"), token("し", "動詞-自立"), token("一", "名詞-数"), token("二", "名詞-数"), token("三十", "名詞-数"),
+            token("百", "名詞-数"), token("千二百", "名詞-数"), token("五万", "名詞-数"), token("二千二十五", "名詞-数"), token("十億", "名詞-数"),
+            token("10", "名詞-数"), token("2025", "名詞-数"), token("3", "名詞-数"), token("円", "名詞-接尾-助数詞"), token("年", "名詞-接尾-助数詞"),
+            token("人", "名詞-接尾-助数詞"), token("個", "名詞-接尾-助数詞"), token("Lucene", "名詞-固有名詞-組織"), token("API", "名詞-一般"),
+            token("。", "記号-句点"), token("、", "記号-読点") };
+
+    /** English tokens with the types assigned by StandardTokenizer */
+    private static final Token[] ENGLISH_TOKENS = { //
+            token("the", "<ALPHANUM>"), token("search", "<ALPHANUM>"), token("engines", "<ALPHANUM>"), token("running", "<ALPHANUM>"),
+            token("connection", "<ALPHANUM>"), token("connected", "<ALPHANUM>"), token("easily", "<ALPHANUM>"), token("generalization", "<ALPHANUM>"),
+            token("relational", "<ALPHANUM>"), token("hopeful", "<ALPHANUM>"), token("analysis", "<ALPHANUM>"), token("tokens", "<ALPHANUM>"),
+            token("of", "<ALPHANUM>"), token("and", "<ALPHANUM>"), token("is", "<ALPHANUM>"), token("abc123", "<ALPHANUM>"), token("x86", "<ALPHANUM>"),
+            token("v", "<ALPHANUM>"), token("2", "<NUM>"), token("100", "<NUM>"), token("2025", "<NUM>"), token("Lucene", "<ALPHANUM>"),
+            token("API", "<ALPHANUM>"), token("indexing", "<ALPHANUM>") };
+
+    private Corpus() {
+    }
+
+    /**
+     * Generates literary Japanese text containing iteration marks.
+     *
+     * @param length the approximate number of characters to generate
+     * @param seed the random seed
+     * @return the generated text
+     */
+    public static String literaryJapanese(final int length, final long seed) {
+        return generate(LITERARY_JAPANESE, length, seed);
+    }
+
+    /**
+     * Generates modern Japanese text containing prolonged sound marks, iteration marks and numbers.
+     *
+     * @param length the approximate number of characters to generate
+     * @param seed the random seed
+     * @return the generated text
+     */
+    public static String modernJapanese(final int length, final long seed) {
+        return generate(MODERN_JAPANESE, length, seed);
+    }
+
+    /**
+     * Generates a sequence of Japanese tokens with part-of-speech tags.
+     *
+     * @param count the number of tokens to generate
+     * @param seed the random seed
+     * @return the generated tokens
+     */
+    public static Token[] japaneseTokens(final int count, final long seed) {
+        return generate(JAPANESE_TOKENS, count, seed);
+    }
+
+    /**
+     * Generates a sequence of English tokens with token types.
+     *
+     * @param count the number of tokens to generate
+     * @param seed the random seed
+     * @return the generated tokens
+     */
+    public static Token[] englishTokens(final int count, final long seed) {
+        return generate(ENGLISH_TOKENS, count, seed);
+    }
+
+    private static String generate(final String[] fragments, final int length, final long seed) {
+        final Random random = new Random(seed);
+        final StringBuilder buf = new StringBuilder(length + 16);
+        while (buf.length() < length) {
+            buf.append(fragments[random.nextInt(fragments.length)]);
+        }
+        return buf.toString();
+    }
+
+    private static Token[] generate(final Token[] vocabulary, final int count, final long seed) {
+        final Random random = new Random(seed);
+        final Token[] tokens = new Token[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = vocabulary[random.nextInt(vocabulary.length)];
+        }
+        return tokens;
+    }
+
+    private static Token token(final String term, final String type) {
+        return new Token(term, type);
+    }
+
+    /**
+     * A token of a generated corpus.
+     *
+     * @param term the term text
+     * @param type the token type or part-of-speech tag
+     */
+    public record Token(String term, String type) {
+    }
+}
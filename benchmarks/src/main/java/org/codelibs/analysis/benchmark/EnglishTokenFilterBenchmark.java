@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.analysis.en.AlphaNumWordFilter;
+import org.codelibs.analysis.en.FlexiblePorterStemFilter;
+import org.codelibs.analysis.en.ReloadableKeywordMarkerFilter;
+import org.codelibs.analysis.en.ReloadableStopFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the English token filters on a replayed sequence of English tokens. The {@code none}
+ * filter measures the replay alone, and the {@code tokens} counter reports the number of tokens
+ * produced per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnglishTokenFilterBenchmark {
+
+    @Param({ "none", "AlphaNumWordFilter", "FlexiblePorterStemFilter", "ReloadableStopFilter", "ReloadableKeywordMarkerFilter" })
+    public String filter;
+
+    @Param({ "10000" })
+    public int count;
+
+    private Path wordPath;
+
+    private TokenStream stream;
+
+    @Setup
+    public void setup() throws IOException {
+        wordPath = Files.createTempFile("benchmark", ".txt");
+        Files.write(wordPath, List.of("the", "of", "and", "is", "lucene", "api"));
+        final TokenReplayStream source = new TokenReplayStream(Corpus.englishTokens(count, 0L));
+        stream = switch (filter) {
+        case "none" -> source;
+        case "AlphaNumWordFilter" -> new AlphaNumWordFilter(source);
+        case "FlexiblePorterStemFilter" -> new FlexiblePorterStemFilter(source, true, true, true, true, true, true);
+        case "ReloadableStopFilter" -> new ReloadableStopFilter(source, wordPath, true, 60000L);
+        case "ReloadableKeywordMarkerFilter" -> new ReloadableKeywordMarkerFilter(source, wordPath, 60000L);
+        default -> throw new IllegalArgumentException("Unknown filter: " + filter);
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(wordPath);
+    }
+
+    @Benchmark
+    public int filter(final Throughput throughput) throws IOException {
+        return throughput.consume(stream);
+    }
+}
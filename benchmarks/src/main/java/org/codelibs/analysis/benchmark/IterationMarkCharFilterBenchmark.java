@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.Character.UnicodeBlock;
+import java.util.concurrent.TimeUnit;
+
+import org.codelibs.analysis.BufferedCharFilter;
+import org.codelibs.analysis.ja.IterationMarkCharFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link IterationMarkCharFilter} on literary Japanese text against a baseline that resolves
+ * iteration marks with {@code String.indexOf} and {@code UnicodeBlock.of}, as the filter used to.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterationMarkCharFilterBenchmark {
+
+    @Param({ "100000" })
+    public int length;
+
+    private String text;
+
+    private final char[] buffer = new char[4096];
+
+    @Setup
+    public void setup() {
+        text = Corpus.literaryJapanese(length, 0L);
+    }
+
+    @Benchmark
+    public int iterationMarkCharFilter() throws IOException {
+        return consume(new IterationMarkCharFilter(new StringReader(text)));
+    }
+
+    @Benchmark
+    public int baseline() throws IOException {
+        return consume(new IndexOfIterationMarkCharFilter(new StringReader(text)));
+    }
+
+    private int consume(final Reader reader) throws IOException {
+        int count = 0;
+        try (reader) {
+            for (int cnt = reader.read(buffer); cnt >= 0; cnt = reader.read(buffer)) {
+                count += cnt;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Iteration mark expansion with the String.indexOf and UnicodeBlock.of lookups.
+     */
+    static class IndexOfIterationMarkCharFilter extends BufferedCharFilter {
+        private static final String UNVOICED_CONSONANT_HIRAGANA = "かきくけこさしすせそたちつてとはひふへほはひふへほ";
+
+        private static final String VOICED_SOUND_MARK_HIRAGANA = "がぎぐげござじずぜぞだぢづでどばびぶべぼぱぴぷぺぽ";
+
+        private static final String UNVOICED_CONSONANT_KATAKANA = "カキクケコサシスセソタチツテトハヒフヘホハヒフヘホ";
+
+        private static final String VOICED_SOUND_MARK_KATAKANA = "ガギグゲゴザジズゼゾダヂヅデドバビブベボパピプペポ";
+
+        IndexOfIterationMarkCharFilter(final Reader in) {
+            super(in);
+        }
+
+        @Override
+        protected CharSequence processInput(final CharSequence input) {
+            return processWhole(input);
+        }
+
+        @Override
+        protected int processInput(final char[] input, final int start, final int end, final int length) {
+            int pos = start;
+            while (pos < end) {
+                final char c = input[pos];
+                if (c == '々' && pos + 1 < length && input[pos + 1] == '々' && pos - 1 >= 0) {
+                    final char prev1 = input[pos - 1];
+                    if (pos - 2 >= 0 && UnicodeBlock.of(input[pos - 2]) == UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS) {
+                        append(input[pos - 2]);
+                    } else {
+                        append(prev1);
+                    }
+                    append(prev1);
+                    pos += 2;
+                    continue;
+                }
+                if (pos - 1 >= 0) {
+                    final char prev = input[pos - 1];
+                    switch (c) {
+                    case 'ゝ':
+                        append(replace(prev, VOICED_SOUND_MARK_HIRAGANA, UNVOICED_CONSONANT_HIRAGANA));
+                        break;
+                    case 'ゞ':
+                        append(replace(prev, UNVOICED_CONSONANT_HIRAGANA, VOICED_SOUND_MARK_HIRAGANA));
+                        break;
+                    case 'ヽ':
+                        append(replace(prev, VOICED_SOUND_MARK_KATAKANA, UNVOICED_CONSONANT_KATAKANA));
+                        break;
+                    case 'ヾ':
+                        append(replace(prev, UNVOICED_CONSONANT_KATAKANA, VOICED_SOUND_MARK_KATAKANA));
+                        break;
+                    case '々':
+                    case '〻':
+                        append(prev);
+                        break;
+                    default:
+                        append(c);
+                        break;
+                    }
+                } else {
+                    append(c);
+                }
+                pos++;
+            }
+            return pos;
+        }
+
+        private static char replace(final char c, final String from, final String to) {
+            final int index = from.indexOf(c);
+            return index >= 0 ? to.charAt(index) : c;
+        }
+    }
+}
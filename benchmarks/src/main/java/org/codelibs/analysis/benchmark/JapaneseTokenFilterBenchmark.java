@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.analysis.ja.CharTypeFilter;
+import org.codelibs.analysis.ja.ConcatenationRules;
+import org.codelibs.analysis.ja.KanjiNumberCache;
+import org.codelibs.analysis.ja.KanjiNumberFilter;
+import org.codelibs.analysis.ja.MultiPatternConcatenationFilter;
+import org.codelibs.analysis.ja.NumberConcatenationFilter;
+import org.codelibs.analysis.ja.PartOfSpeechIds;
+import org.codelibs.analysis.ja.PatternConcatenationFilter;
+import org.codelibs.analysis.ja.PosConcatenationFilter;
+import org.codelibs.analysis.ja.StopTokenPrefixFilter;
+import org.codelibs.analysis.ja.StopTokenSuffixFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Japanese token filters on a replayed sequence of Japanese tokens, so that no
+ * morphological analyzer is involved. The {@code none} filter measures the replay alone, and the
+ * {@code tokens} counter reports the number of tokens produced per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JapaneseTokenFilterBenchmark {
+
+    @Param({ "none", "CharTypeFilter", "KanjiNumberFilter", "CachedKanjiNumberFilter", "NumberConcatenationFilter", "PatternConcatenationFilter",
+            "CompiledPatternConcatenationFilter", "MultiPatternConcatenationFilter", "PosConcatenationFilter",
+            "PosIdConcatenationFilter", "StopTokenPrefixFilter", "StopTokenSuffixFilter" })
+    public String filter;
+
+    @Param({ "10000" })
+    public int count;
+
+    private TokenStream stream;
+
+    @Setup
+    public void setup() {
+        final TokenReplayStream source = new TokenReplayStream(Corpus.japaneseTokens(count, 0L));
+        stream = switch (filter) {
+        case "none" -> source;
+        case "CharTypeFilter" -> new CharTypeFilter(source, true, false, true);
+        case "KanjiNumberFilter" -> new KanjiNumberFilter(source);
+        case "CachedKanjiNumberFilter" -> new KanjiNumberFilter(source, new KanjiNumberCache(1024));
+        case "NumberConcatenationFilter" -> new NumberConcatenationFilter(source, new CharArraySet(Set.of("円", "年", "人", "個"), false));
+        case "PatternConcatenationFilter" -> new PatternConcatenationFilter(source, Pattern.compile("歯科|衛生"), Pattern.compile("医院|士"));
+        case "CompiledPatternConcatenationFilter" -> new PatternConcatenationFilter(source, PatternConcatenationFilter.compile(Pattern.compile("歯科|衛生")),
+                PatternConcatenationFilter.compile(Pattern.compile("医院|士")));
+        case "MultiPatternConcatenationFilter" -> new MultiPatternConcatenationFilter(source,
+                new ConcatenationRules(new Pattern[] { Pattern.compile("歯科|衛生"), Pattern.compile("[0-9]+") },
+                        new Pattern[] { Pattern.compile("医院|士"), Pattern.compile("円|年|人|個") }));
+        case "PosConcatenationFilter" -> new PosConcatenationFilter(source, Set.of("名詞-一般", "名詞-サ変接続"), source::partOfSpeech);
+        case "PosIdConcatenationFilter" -> {
+            final PartOfSpeechIds ids = new PartOfSpeechIds();
+            yield new PosConcatenationFilter(source, ids.toBitSet(Set.of("名詞-一般", "名詞-サ変接続")), ids.supplier(source::partOfSpeech));
+        }
+        case "StopTokenPrefixFilter" -> new StopTokenPrefixFilter(source, new String[] { "東", "デー", "L", "二千" }, true);
+        case "StopTokenSuffixFilter" -> new StopTokenSuffixFilter(source, new String[] { "京", "ター", "E", "十五" }, true);
+        default -> throw new IllegalArgumentException("Unknown filter: " + filter);
+        };
+    }
+
+    @Benchmark
+    public int filter(final Throughput throughput) throws IOException {
+        return throughput.consume(stream);
+    }
+}
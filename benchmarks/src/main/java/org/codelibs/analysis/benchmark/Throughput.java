@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results reported next to the operation rate: tokens and characters produced per second.
+ * Bytes allocated per operation are reported by running with {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+    /** Number of tokens produced */
+    public long tokens;
+
+    /** Number of characters produced */
+    public long chars;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        tokens = 0;
+        chars = 0;
+    }
+
+    /**
+     * Consumes a token stream and counts its tokens.
+     *
+     * @param stream the stream to consume
+     * @return the number of tokens
+     * @throws IOException if the stream fails
+     */
+    int consume(final TokenStream stream) throws IOException {
+        int count = 0;
+        stream.reset();
+        while (stream.incrementToken()) {
+            count++;
+        }
+        stream.end();
+        stream.close();
+        tokens += count;
+        return count;
+    }
+
+    /**
+     * Reads a reader to the end and counts its characters.
+     *
+     * @param reader the reader to consume
+     * @param buffer the buffer to read into
+     * @return the number of characters
+     * @throws IOException if the reader fails
+     */
+    int consume(final Reader reader, final char[] buffer) throws IOException {
+        int count = 0;
+        try (reader) {
+            for (int cnt = reader.read(buffer); cnt >= 0; cnt = reader.read(buffer)) {
+                count += cnt;
+            }
+        }
+        chars += count;
+        return count;
+    }
+}
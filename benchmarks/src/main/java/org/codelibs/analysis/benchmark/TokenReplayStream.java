@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.benchmark;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * A token stream that replays pre-generated tokens, so that the benchmarks measure the filters
+ * rather than a tokenizer. Tokens are separated by one character in the offsets, and the type
+ * of each token is also exposed as its part of speech.
+ */
+public final class TokenReplayStream extends TokenStream {
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    private final Corpus.Token[] tokens;
+
+    private int index;
+
+    private int offset;
+
+    /**
+     * Creates a stream replaying the given tokens on every reset.
+     *
+     * @param tokens the tokens to replay
+     */
+    public TokenReplayStream(final Corpus.Token[] tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        if (index == tokens.length) {
+            return false;
+        }
+        clearAttributes();
+        final Corpus.Token token = tokens[index++];
+        termAtt.setEmpty().append(token.term());
+        offsetAtt.setOffset(offset, offset + token.term().length());
+        typeAtt.setType(token.type());
+        offset += token.term().length() + 1;
+        return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+        super.end();
+        offsetAtt.setOffset(offset, offset);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        index = 0;
+        offset = 0;
+    }
+
+    /**
+     * Returns the part of speech of the current token.
+     *
+     * @return the part-of-speech tag
+     */
+    public String partOfSpeech() {
+        return index > 0 ? tokens[index - 1].type() : null;
+    }
+
+    /**
+     * Returns the total number of characters of the terms.
+     *
+     * @return the number of characters
+     */
+    public long termChars() {
+        long chars = 0;
+        for (final Corpus.Token token : tokens) {
+            chars += token.term().length();
+        }
+        return chars;
+    }
+}
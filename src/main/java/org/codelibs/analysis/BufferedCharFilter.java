@@ -17,52 +17,366 @@ package org.codelibs.analysis;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.CharBuffer;
 
 import org.apache.lucene.analysis.charfilter.BaseCharFilter;
+import org.apache.lucene.util.ArrayUtil;
 
 /**
  * Abstract base class for character filters that buffer input before processing.
- * This filter reads all input into memory first, then processes it through the
+ * By default, this filter reads all input into memory first, then processes it through the
  * processInput method before making it available for reading.
+ *
+ * <p>When a window size is given and the subclass declares how much context it needs through
+ * {@link #getLookBehind()} and {@link #getLookAhead()}, the input is processed in fixed-size
+ * windows instead, so memory use is bounded by the window size rather than the document size.</p>
+ *
+ * <p>Subclasses that change the length of the text report each change through
+ * {@link #addOffsetCorrection(int, int)} while processing, so that offsets of the produced
+ * tokens are corrected back to the original input.</p>
+ *
+ * <p>Input and output are kept in char arrays that are reused for every window of a document. Lucene
+ * creates a new char filter for every document, so by default each filter allocates its arrays on the
+ * first read, and in whole-input mode grows them up to the size of the document. To reuse the arrays
+ * across documents, give each filter the same {@link Buffers} with {@link #setBuffers(Buffers)}, for
+ * example from a {@link org.apache.lucene.util.CloseableThreadLocal} held by the analyzer: a filter
+ * takes the arrays on its first read and hands them back when it is closed. The offset corrections
+ * of {@link BaseCharFilter} are still allocated per document that changes the text length.</p>
+ *
+ * <p>Subclasses implement {@link #processInput(CharSequence)}, or override
+ * {@link #processInput(char[], int, int, int)} to process the buffers directly and support windowed
+ * processing and offset correction; such subclasses can implement {@link #processInput(CharSequence)}
+ * with {@link #processWhole(CharSequence)}.</p>
  */
 public abstract class BufferedCharFilter extends BaseCharFilter {
-    /** The reader containing the processed buffered input */
+    /** Initial size of the buffers when the whole input is buffered */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * The reader containing the processed buffered input.
+     *
+     * @deprecated No longer used: the processed input is kept in an internal buffer. It is always null.
+     */
+    @Deprecated
     protected Reader bufferedInput = null;
 
+    /** Number of characters processed per window, or 0 to buffer the whole input */
+    private final int windowSize;
+
+    /** Input buffer holding lookbehind context, the current window and lookahead context */
+    private char[] inputBuffer;
+
+    /** Offset in the original input of the first character in the input buffer */
+    private int inputOffset;
+
+    /** Number of valid characters in the input buffer */
+    private int inputLength;
+
+    /** Position in the input buffer up to which the input has been processed */
+    private int inputProcessed;
+
+    /** Whether the underlying input has been read to the end */
+    private boolean inputExhausted;
+
+    /** Processed output of the current window */
+    private char[] outputBuffer;
+
+    /** Number of valid characters in the output buffer */
+    private int outputLength;
+
+    /** Read position in the output buffer */
+    private int outputPos;
+
+    /** Whether {@link #processWhole(CharSequence)} is running, so that offset corrections are ignored */
+    private boolean processingWhole;
+
+    /** Buffers to take the arrays from and hand them back to, or null to allocate them */
+    private Buffers buffers;
+
     /**
      * Creates a new BufferedCharFilter.
      *
      * @param in the input reader to buffer and process
      */
     public BufferedCharFilter(final Reader in) {
+        this(in, 0);
+    }
+
+    /**
+     * Creates a new BufferedCharFilter that processes the input in windows of the given size.
+     * Windowed processing is used only if the subclass declares its lookbehind and lookahead;
+     * otherwise the whole input is buffered.
+     *
+     * @param in the input reader to buffer and process
+     * @param windowSize the number of characters to process per window, or 0 to buffer the whole input
+     * @throws IllegalArgumentException if windowSize is negative
+     */
+    public BufferedCharFilter(final Reader in, final int windowSize) {
         super(in);
+        if (windowSize < 0) {
+            throw new IllegalArgumentException("windowSize must not be negative: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Sets the buffers to take the input and output arrays from on the first read and to hand them back to
+     * when this filter is closed, so that filters created one after another reuse the same arrays.
+     *
+     * @param buffers the buffers, or null to allocate the arrays
+     * @throws IllegalStateException if reading has already started
+     */
+    public void setBuffers(final Buffers buffers) {
+        if (inputBuffer != null) {
+            throw new IllegalStateException("Buffers must be set before the first read.");
+        }
+        this.buffers = buffers;
     }
 
     @Override
     public int read(final char[] cbuf, final int off, final int len) throws IOException {
-        // Buffer all input on the first call.
-        if (bufferedInput == null) {
-            fill();
+        if (len == 0) {
+            return 0;
+        }
+        while (outputPos >= outputLength) {
+            if (!processNext()) {
+                return -1;
+            }
+        }
+        final int count = Math.min(len, outputLength - outputPos);
+        System.arraycopy(outputBuffer, outputPos, cbuf, off, count);
+        outputPos += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (buffers != null && inputBuffer != null) {
+                buffers.release(inputBuffer, outputBuffer);
+            }
+            inputBuffer = null;
+            outputBuffer = null;
+            inputExhausted = true;
+            inputLength = inputProcessed = outputLength = outputPos = 0;
+        }
+    }
+
+    private boolean isStreaming() {
+        return windowSize > 0 && getLookBehind() >= 0 && getLookAhead() >= 0;
+    }
+
+    private boolean processNext() throws IOException {
+        final boolean streaming = isStreaming();
+        final int lookBehind = streaming ? getLookBehind() : 0;
+        final int lookAhead = streaming ? getLookAhead() : 0;
+        final int capacity = streaming ? lookBehind + windowSize + lookAhead : Integer.MAX_VALUE;
+        if (inputBuffer == null) {
+            if (inputExhausted) {
+                return false;
+            }
+            final int inputSize = streaming ? capacity : INITIAL_BUFFER_SIZE;
+            final int outputSize = streaming ? windowSize + lookAhead : INITIAL_BUFFER_SIZE;
+            if (buffers != null) {
+                inputBuffer = buffers.takeInput(inputSize);
+                outputBuffer = buffers.takeOutput(outputSize);
+            } else {
+                inputBuffer = new char[inputSize];
+                outputBuffer = new char[outputSize];
+            }
+        } else {
+            if (inputExhausted && inputProcessed >= inputLength) {
+                return false;
+            }
+            // Keep the lookbehind context and any unprocessed characters.
+            final int from = inputProcessed - Math.min(lookBehind, inputProcessed);
+            System.arraycopy(inputBuffer, from, inputBuffer, 0, inputLength - from);
+            inputOffset += from;
+            inputLength -= from;
+            inputProcessed -= from;
+        }
+
+        while (!inputExhausted && inputLength < capacity) {
+            if (inputLength == inputBuffer.length) {
+                inputBuffer = ArrayUtil.grow(inputBuffer, inputLength + 1);
+            }
+            final int cnt = input.read(inputBuffer, inputLength, Math.min(inputBuffer.length, capacity) - inputLength);
+            if (cnt < 0) {
+                inputExhausted = true;
+            } else {
+                inputLength += cnt;
+            }
+        }
+
+        outputLength = 0;
+        outputPos = 0;
+        final int end = inputExhausted ? inputLength : inputLength - lookAhead;
+        if (end <= inputProcessed) {
+            inputProcessed = inputLength;
+            return false;
+        }
+        inputProcessed = processInput(inputBuffer, inputProcessed, end, inputLength);
+        return true;
+    }
+
+    /**
+     * Appends a character to the output. Subclasses call this method from processInput.
+     *
+     * @param c the character to append
+     */
+    protected void append(final char c) {
+        if (outputLength == outputBuffer.length) {
+            outputBuffer = ArrayUtil.grow(outputBuffer, outputLength + 1);
         }
+        outputBuffer[outputLength++] = c;
+    }
 
-        return bufferedInput.read(cbuf, off, len);
+    /**
+     * Appends characters to the output. Subclasses call this method from processInput.
+     *
+     * @param chars the characters to append
+     * @param offset the position of the first character to append
+     * @param length the number of characters to append
+     */
+    protected void append(final char[] chars, final int offset, final int length) {
+        outputBuffer = ArrayUtil.grow(outputBuffer, outputLength + length);
+        System.arraycopy(chars, offset, outputBuffer, outputLength, length);
+        outputLength += length;
     }
 
-    private void fill() throws IOException {
-        final StringBuilder buffered = new StringBuilder();
-        final char[] temp = new char[1024];
-        for (int cnt = input.read(temp); cnt > 0; cnt = input.read(temp)) {
-            buffered.append(temp, 0, cnt);
+    /**
+     * Records a change of the text length made while processing the input. Subclasses call this method
+     * from processInput after producing the replacement for a part of the input, in increasing order of
+     * input offset. The corrections are stored in the primitive offset arrays of {@link BaseCharFilter},
+     * so {@link #correctOffset(int)} is a binary search without allocation.
+     *
+     * @param inputOffset the position in the input passed to processInput after the replaced characters
+     * @param delta the number of input characters replaced minus the number of characters produced for them
+     */
+    protected void addOffsetCorrection(final int inputOffset, final int delta) {
+        if (delta == 0 || processingWhole) {
+            return;
         }
-        bufferedInput = new StringReader(processInput(buffered).toString());
+        final int cumulativeDiff = getLastCumulativeDiff() + delta;
+        addOffCorrectMap(this.inputOffset + inputOffset - cumulativeDiff, cumulativeDiff);
+    }
+
+    /**
+     * Returns the number of characters before a window that {@link #processInput(char[], int, int, int)}
+     * needs to see. Subclasses that support windowed processing override this method.
+     *
+     * @return the lookbehind in characters, or -1 if the whole input must be buffered
+     */
+    protected int getLookBehind() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of characters after a window that {@link #processInput(char[], int, int, int)}
+     * needs to see. Subclasses that support windowed processing override this method.
+     *
+     * @return the lookahead in characters, or -1 if the whole input must be buffered
+     */
+    protected int getLookAhead() {
+        return -1;
     }
 
     /**
      * Processes the buffered input and returns the transformed character sequence.
+     * This method is called only if {@link #processInput(char[], int, int, int)} is not overridden.
      *
      * @param input the buffered input to process
      * @return the processed character sequence
      */
     protected abstract CharSequence processInput(CharSequence input);
+
+    /**
+     * Processes the whole input with {@link #processInput(char[], int, int, int)} and returns the result,
+     * without recording offset corrections. Subclasses that override the char array method can implement
+     * {@link #processInput(CharSequence)} with this method. The filter itself does not call it, so it
+     * is only used by callers of the CharSequence method; it copies the input and allocates the result
+     * on every call.
+     *
+     * @param input the input to process
+     * @return the processed character sequence
+     */
+    protected final CharSequence processWhole(final CharSequence input) {
+        final char[] chars = input.toString().toCharArray();
+        final char[] savedOutput = outputBuffer;
+        final int savedLength = outputLength;
+        outputBuffer = new char[Math.max(chars.length, 1)];
+        outputLength = 0;
+        processingWhole = true;
+        try {
+            processInput(chars, 0, chars.length, chars.length);
+            return new String(outputBuffer, 0, outputLength);
+        } finally {
+            outputBuffer = savedOutput;
+            outputLength = savedLength;
+            processingWhole = false;
+        }
+    }
+
+    /**
+     * Processes the characters of the input from start (inclusive) to end (exclusive) and appends the
+     * transformed characters with {@link #append(char)}. The characters before start and from end up to
+     * length are context only: at most {@link #getLookBehind()} characters before start and
+     * {@link #getLookAhead()} characters after end are available, and fewer only at the beginning or end
+     * of the whole input. When the whole input is buffered, start is 0 and end equals length.
+     *
+     * <p>The default implementation passes the whole input to {@link #processInput(CharSequence)}.</p>
+     *
+     * @param input the buffered input, which must not be modified
+     * @param start the position of the first character to process
+     * @param end the position after the last character to process
+     * @param length the number of valid characters in the input
+     * @return the position after the last consumed character, which is at least end and at most length
+     */
+    protected int processInput(final char[] input, final int start, final int end, final int length) {
+        final CharSequence processed = processInput(CharBuffer.wrap(input, start, end - start));
+        for (int i = 0; i < processed.length(); i++) {
+            append(processed.charAt(i));
+        }
+        return end;
+    }
+
+    /**
+     * Input and output arrays that filters created one after another can reuse. A filter takes the arrays
+     * on its first read and hands them back, possibly grown, when it is closed; a filter that finds them
+     * taken allocates its own. Buffers are not thread-safe, so each thread needs its own.
+     */
+    public static final class Buffers {
+
+        /** Largest array kept for reuse (1M characters); larger arrays are dropped when handed back */
+        public static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+        /** The input array, or null if it is taken */
+        private char[] input;
+
+        /** The output array, or null if it is taken */
+        private char[] output;
+
+        private char[] takeInput(final int size) {
+            final char[] chars = input;
+            input = null;
+            return chars != null && chars.length >= size ? chars : new char[size];
+        }
+
+        private char[] takeOutput(final int size) {
+            final char[] chars = output;
+            output = null;
+            return chars != null && chars.length >= size ? chars : new char[size];
+        }
+
+        private void release(final char[] inputChars, final char[] outputChars) {
+            if (inputChars.length <= MAX_RETAINED_SIZE) {
+                input = inputChars;
+            }
+            if (outputChars.length <= MAX_RETAINED_SIZE) {
+                output = outputChars;
+            }
+        }
+    }
 }
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.lucene.analysis.CharacterUtils;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ByteBuffersDataInput;
+import org.apache.lucene.store.ByteBuffersIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.OutputStreamIndexOutput;
+import org.apache.lucene.util.CloseableThreadLocal;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.NoOutputs;
+import org.apache.lucene.util.fst.OffHeapFSTStore;
+import org.apache.lucene.util.fst.Util;
+
+/**
+ * A word list compiled into a Lucene {@link FST} and stored in a binary file. The file is memory mapped
+ * when opened, so the words stay off the Java heap and the pages are shared through the OS page cache by
+ * every set opened from the same file.
+ *
+ * <p>Besides exact lookups, the set finds whether any of its words is a prefix of a text, or a suffix
+ * if it was compiled reversed. If it was compiled to ignore case, words are lowercased when compiled
+ * and texts are lowercased code point by code point when looked up, as
+ * {@link org.apache.lucene.analysis.CharArraySet} does.</p>
+ *
+ * <p>A word file is compiled with {@link #compile(Path, Path, boolean, boolean)} and opened with
+ * {@link #open(Path)}. Opened sets are immutable and thread-safe. A compiled file must not be modified
+ * while it is open; replace it by moving a new file into place instead.</p>
+ *
+ * <p>Each thread walks the FST with its own reader, held in a {@link CloseableThreadLocal} so that the
+ * readers of a set that is no longer used are released when the set is garbage collected, and not only
+ * when the threads that used it die. An owner that knows when the set is no longer used can release them
+ * at once with {@link #close()}.</p>
+ */
+public final class CompiledWordSet implements WordSet, Closeable {
+
+    /** Codec name written in the file header */
+    static final String CODEC_NAME = "CompiledWordSet";
+
+    /** Current version of the file format */
+    static final int VERSION_CURRENT = 0;
+
+    /** Flag for sets compiled to ignore case */
+    private static final byte FLAG_IGNORE_CASE = 1;
+
+    /** Flag for sets compiled with reversed words */
+    private static final byte FLAG_REVERSED = 2;
+
+    /** The compiled words, or null if the set is empty */
+    private final FST<Object> fst;
+
+    /** Number of words in the set */
+    private final int size;
+
+    /** Whether texts are lowercased when looked up */
+    private final boolean ignoreCase;
+
+    /** Whether the words are stored reversed and matched against the end of texts */
+    private final boolean reversed;
+
+    /** Per-thread arc and reader used to walk the FST */
+    private final CloseableThreadLocal<Scratch> scratch = new CloseableThreadLocal<>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(fst);
+        }
+    };
+
+    private CompiledWordSet(final FST<Object> fst, final int size, final boolean ignoreCase, final boolean reversed) {
+        this.fst = fst;
+        this.size = size;
+        this.ignoreCase = ignoreCase;
+        this.reversed = reversed;
+    }
+
+    /**
+     * Compiles a word file with one word per line, UTF-8 encoded, into a binary file.
+     * Leading and trailing whitespace is removed and blank lines are skipped, as
+     * {@link org.apache.lucene.analysis.WordlistLoader} does.
+     *
+     * @param wordPath the word file to compile
+     * @param output the file to write
+     * @param ignoreCase whether to lowercase the words and look up texts case-insensitively
+     * @param reversed whether to reverse the words so that they are matched against the end of texts
+     * @throws IOException if the files cannot be read or written
+     */
+    public static void compile(final Path wordPath, final Path output, final boolean ignoreCase, final boolean reversed)
+            throws IOException {
+        final List<String> words;
+        try (BufferedReader reader = Files.newBufferedReader(wordPath, StandardCharsets.UTF_8)) {
+            words = reader.lines().map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+        write(words, output, ignoreCase, reversed);
+    }
+
+    /**
+     * Compiles words into a binary file.
+     *
+     * @param words the words to compile
+     * @param output the file to write
+     * @param ignoreCase whether to lowercase the words and look up texts case-insensitively
+     * @param reversed whether to reverse the words so that they are matched against the end of texts
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final Collection<String> words, final Path output, final boolean ignoreCase, final boolean reversed)
+            throws IOException {
+        // FST inputs must be added in sorted order, and String order is UTF-16 code unit order
+        final TreeSet<String> sorted = new TreeSet<>();
+        for (final String word : words) {
+            final char[] chars = word.toCharArray();
+            if (ignoreCase) {
+                CharacterUtils.toLowerCase(chars, 0, chars.length);
+            }
+            if (reversed) {
+                reverse(chars);
+            }
+            sorted.add(new String(chars));
+        }
+
+        final FSTCompiler<Object> compiler = new FSTCompiler.Builder<>(FST.INPUT_TYPE.BYTE2, NoOutputs.getSingleton()).build();
+        final IntsRefBuilder scratchInts = new IntsRefBuilder();
+        for (final String word : sorted) {
+            compiler.add(Util.toUTF16(word, scratchInts), NoOutputs.getSingleton().getNoOutput());
+        }
+        final FST.FSTMetadata<Object> metadata = compiler.compile();
+
+        try (IndexOutput out = new OutputStreamIndexOutput(output.toString(), output.getFileName().toString(),
+                Files.newOutputStream(output), 8192)) {
+            CodecUtil.writeHeader(out, CODEC_NAME, VERSION_CURRENT);
+            out.writeByte((byte) ((ignoreCase ? FLAG_IGNORE_CASE : 0) | (reversed ? FLAG_REVERSED : 0)));
+            out.writeVInt(sorted.size());
+            if (metadata != null) {
+                FST.fromFSTReader(metadata, compiler.getFSTReader()).save(out, out);
+            }
+            CodecUtil.writeFooter(out);
+        }
+    }
+
+    /**
+     * Opens a compiled word file by memory mapping it. The mapping is released when the set is garbage collected.
+     *
+     * @param path the compiled file
+     * @return the word set
+     * @throws IOException if the file cannot be read or is not a valid compiled word file
+     */
+    public static CompiledWordSet open(final Path path) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final IndexInput in = new ByteBuffersIndexInput(new ByteBuffersDataInput(List.of(buffer)), path.toString());
+        CodecUtil.checksumEntireFile(in);
+        in.seek(0);
+        CodecUtil.checkHeader(in, CODEC_NAME, VERSION_CURRENT, VERSION_CURRENT);
+        final byte flags = in.readByte();
+        final int size = in.readVInt();
+        FST<Object> fst = null;
+        if (size > 0) {
+            final FST.FSTMetadata<Object> metadata = FST.readMetadata(in, NoOutputs.getSingleton());
+            fst = FST.fromFSTReader(metadata, new OffHeapFSTStore(in, in.getFilePointer(), metadata));
+        }
+        return new CompiledWordSet(fst, size, (flags & FLAG_IGNORE_CASE) != 0, (flags & FLAG_REVERSED) != 0);
+    }
+
+    /**
+     * Checks whether the file starts with the header of a compiled word file.
+     *
+     * @param path the file to check
+     * @return true if the file looks like a compiled word file
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isCompiled(final Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            final byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == CodecUtil.CODEC_MAGIC;
+        }
+    }
+
+    private static void reverse(final char[] chars) {
+        for (int i = 0, j = chars.length - 1; i < j; i++, j--) {
+            final char c = chars[i];
+            chars[i] = chars[j];
+            chars[j] = c;
+        }
+    }
+
+    /**
+     * Checks whether the text is one of the words.
+     *
+     * @param text the buffer holding the text
+     * @param offset the start of the text in the buffer
+     * @param length the length of the text
+     * @return true if the set contains the text
+     */
+    @Override
+    public boolean contains(final char[] text, final int offset, final int length) {
+        return walk(text, offset, length, false);
+    }
+
+    /**
+     * Checks whether the text is one of the words.
+     *
+     * @param text the text to check
+     * @return true if the set contains the text
+     */
+    public boolean contains(final CharSequence text) {
+        final char[] chars = text.toString().toCharArray();
+        return contains(chars, 0, chars.length);
+    }
+
+    /**
+     * Checks whether any of the words is a prefix of the text, or a suffix if the set is reversed.
+     *
+     * @param text the buffer holding the text
+     * @param offset the start of the text in the buffer
+     * @param length the length of the text
+     * @return true if a word matches
+     */
+    public boolean matches(final char[] text, final int offset, final int length) {
+        return walk(text, offset, length, true);
+    }
+
+    /**
+     * Checks whether any of the words is a prefix of the text, or a suffix if the set is reversed.
+     *
+     * @param text the text to check
+     * @return true if a word matches
+     */
+    public boolean matches(final CharSequence text) {
+        final char[] chars = text.toString().toCharArray();
+        return matches(chars, 0, chars.length);
+    }
+
+    private boolean walk(final char[] text, final int offset, final int length, final boolean prefix) {
+        if (fst == null) {
+            return false;
+        }
+        final Scratch s = scratch.get();
+        final int end = offset + length;
+        int pos = reversed ? end : offset;
+        try {
+            FST.Arc<Object> arc = fst.getFirstArc(s.arc);
+            while (pos != (reversed ? offset : end)) {
+                if (prefix && arc.isFinal()) {
+                    return true;
+                }
+                final int c;
+                if (!ignoreCase) {
+                    c = reversed ? text[--pos] : text[pos++];
+                } else if (reversed) {
+                    final int cp = Character.codePointBefore(text, pos, offset);
+                    pos -= Character.charCount(cp);
+                    c = Character.toLowerCase(cp);
+                } else {
+                    final int cp = Character.codePointAt(text, pos, end);
+                    pos += Character.charCount(cp);
+                    c = Character.toLowerCase(cp);
+                }
+                if (Character.isBmpCodePoint(c)) {
+                    arc = fst.findTargetArc(c, arc, arc, s.reader);
+                } else {
+                    // labels are UTF-16 code units, stored in reverse order if the set is reversed
+                    arc = fst.findTargetArc(reversed ? Character.lowSurrogate(c) : Character.highSurrogate(c), arc, arc, s.reader);
+                    if (arc != null && !(prefix && arc.isFinal())) {
+                        arc = fst.findTargetArc(reversed ? Character.highSurrogate(c) : Character.lowSurrogate(c), arc, arc, s.reader);
+                    }
+                }
+                if (arc == null) {
+                    return false;
+                }
+            }
+            return arc.isFinal();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of words in the set.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the set was compiled to ignore case.
+     *
+     * @return true if texts are lowercased when looked up
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Returns whether the set was compiled with reversed words.
+     *
+     * @return true if the words are matched against the end of texts
+     */
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    /**
+     * Releases the per-thread readers of this set. The set must not be used after it is closed.
+     */
+    @Override
+    public void close() {
+        scratch.close();
+    }
+
+    /**
+     * Per-thread state for walking the FST.
+     */
+    private static final class Scratch {
+
+        /** Arc reused for every transition */
+        final FST.Arc<Object> arc = new FST.Arc<>();
+
+        /** Reader over the FST bytes */
+        final FST.BytesReader reader;
+
+        Scratch(final FST<Object> fst) {
+            reader = fst == null ? null : fst.getBytesReader();
+        }
+    }
+}
@@ -16,17 +16,28 @@
 package org.codelibs.analysis;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Attribute;
 import org.apache.lucene.util.AttributeSource;
 
 /**
  * Abstract base class for token filters that concatenate adjacent tokens.
  * Subclasses must implement isTarget() and isConcatenated() to define
  * which tokens to process and when to concatenate them.
+ *
+ * <p>Lookahead tokens are buffered in two snapshots of this filter's attributes that are allocated
+ * once and recycled, so buffering a token copies the attribute values instead of capturing a new
+ * {@link AttributeSource.State} for every token.</p>
+ *
+ * <p>By default a run of concatenated tokens is only limited by {@link #MAX_TOKEN_LENGTH_LIMIT}.
+ * Applications that analyze untrusted input can bound the work per term with
+ * {@link #setMaxTokenCount(int)} and {@link #setMaxTokenLength(int)}.</p>
  */
 public abstract class ConcatenationFilter extends TokenFilter {
 
@@ -36,9 +47,44 @@ public abstract class ConcatenationFilter extends TokenFilter {
     /** The offset attribute for managing token offsets */
     protected final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
 
-    /** State for storing lookahead tokens */
+    /** Maximum allowed token length limit (1MB) */
+    public static final int MAX_TOKEN_LENGTH_LIMIT = 1024 * 1024;
+
+    /** Default maximum length of a concatenated term (MAX_TOKEN_LENGTH_LIMIT) */
+    public static final int DEFAULT_MAX_TOKEN_LENGTH = MAX_TOKEN_LENGTH_LIMIT;
+
+    /** Default maximum number of tokens concatenated into one term (no limit) */
+    public static final int DEFAULT_MAX_TOKEN_COUNT = Integer.MAX_VALUE;
+
+    /** Maximum length of a concatenated term */
+    protected int maxTokenLength = DEFAULT_MAX_TOKEN_LENGTH;
+
+    /** Maximum number of tokens concatenated into one term */
+    protected int maxTokenCount = DEFAULT_MAX_TOKEN_COUNT;
+
+    /**
+     * State for storing lookahead tokens.
+     *
+     * @deprecated no longer used; lookahead tokens are buffered in snapshots owned by this filter
+     */
+    @Deprecated
     protected AttributeSource.State current;
 
+    /** Snapshots of the token being concatenated and of the pushed back lookahead token, used as a ring */
+    private final AttributeSource[] snapshots = new AttributeSource[2];
+
+    /** Index of the snapshot holding the token being concatenated */
+    private int head;
+
+    /** Whether the other snapshot holds a lookahead token to return next */
+    private boolean pending;
+
+    /** Whether the snapshot at head already holds the current token */
+    private boolean captured;
+
+    /** Characters of the lookahead token being appended */
+    private char[] lookahead = new char[16];
+
     /**
      * Creates a new ConcatenationFilter.
      *
@@ -64,9 +110,12 @@ public abstract class ConcatenationFilter extends TokenFilter {
 
     @Override
     public final boolean incrementToken() throws IOException {
-        if (current != null) {
-            restoreState(current);
-            current = null;
+        if (pending) {
+            pending = false;
+            // the pushed back token's snapshot becomes the snapshot of the token being concatenated
+            head ^= 1;
+            snapshots[head].copyTo(this);
+            captured = true;
             return processToken();
         }
 
@@ -74,31 +123,39 @@ public abstract class ConcatenationFilter extends TokenFilter {
             return false;
         }
 
+        captured = false;
         return processToken();
     }
 
     /**
      * Processes the current token, potentially concatenating it with following tokens.
+     * A following token that would make the concatenated term exceed {@link #getMaxTokenCount()}
+     * tokens or {@link #getMaxTokenLength()} characters is returned as a separate token instead.
      *
      * @return true if a token is available
      * @throws IOException if an I/O error occurs
      */
     protected boolean processToken() throws IOException {
-        if (!isTarget()) {
-            return true;
-        }
-
-        final State previousState = captureState();
-        if (input.incrementToken()) {
-            if (isConcatenated()) {
-                concatenateTerms(previousState);
-                return processToken();
-            } else {
-                current = captureState();
-                restoreState(previousState);
+        int count = 1;
+        while (isTarget()) {
+            final AttributeSource previous = snapshot(head);
+            if (!captured) {
+                copyTo(previous);
+            }
+            final int length = termAtt.length();
+            if (!input.incrementToken()) {
+                previous.copyTo(this);
+                return true;
             }
-        } else {
-            restoreState(previousState);
+            if (count >= maxTokenCount || length + termAtt.length() > maxTokenLength || !isConcatenated()) {
+                copyTo(snapshot(head ^ 1));
+                pending = true;
+                previous.copyTo(this);
+                return true;
+            }
+            concatenateTerms(previous);
+            captured = false;
+            count++;
         }
         return true;
     }
@@ -107,7 +164,10 @@ public abstract class ConcatenationFilter extends TokenFilter {
      * Concatenates the current token with the previous token.
      *
      * @param previousState the state of the previous token
+     * @deprecated no longer called by {@link #processToken()}, which concatenates from its own
+     *             snapshots; kept for subclasses that call it directly
      */
+    @Deprecated
     protected void concatenateTerms(final State previousState) {
         final String term = termAtt.toString();
         final int endOffset = offsetAtt.endOffset();
@@ -118,4 +178,104 @@ public abstract class ConcatenationFilter extends TokenFilter {
         offsetAtt.setOffset(offsetAtt.startOffset(), endOffset);
     }
 
+    /**
+     * Concatenates the current token with the previous token.
+     *
+     * @param previous the snapshot of the previous token
+     */
+    private void concatenateTerms(final AttributeSource previous) {
+        final int length = termAtt.length();
+        if (length > lookahead.length) {
+            lookahead = ArrayUtil.grow(lookahead, length);
+        }
+        System.arraycopy(termAtt.buffer(), 0, lookahead, 0, length);
+        final int endOffset = offsetAtt.endOffset();
+
+        previous.copyTo(this);
+
+        final int prefix = termAtt.length();
+        System.arraycopy(lookahead, 0, termAtt.resizeBuffer(prefix + length), prefix, length);
+        termAtt.setLength(prefix + length);
+        offsetAtt.setOffset(offsetAtt.startOffset(), endOffset);
+    }
+
+    /**
+     * Returns the snapshot at the given index, creating it on first use.
+     *
+     * @param index the index of the snapshot
+     * @return the snapshot
+     */
+    private AttributeSource snapshot(final int index) {
+        AttributeSource snapshot = snapshots[index];
+        if (snapshot == null) {
+            snapshot = cloneAttributes();
+            snapshots[index] = snapshot;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        pending = false;
+        // attributes added after the snapshots were created would not fit into them
+        final AttributeSource snapshot = snapshots[0] != null ? snapshots[0] : snapshots[1];
+        if (snapshot != null) {
+            for (final Iterator<Class<? extends Attribute>> it = getAttributeClassesIterator(); it.hasNext();) {
+                if (!snapshot.hasAttribute(it.next())) {
+                    snapshots[0] = null;
+                    snapshots[1] = null;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum length of a concatenated term. A token longer than this is still returned, but
+     * is not concatenated with the tokens around it.
+     *
+     * @param length the maximum term length (must be between 1 and MAX_TOKEN_LENGTH_LIMIT)
+     * @throws IllegalArgumentException if length is invalid
+     */
+    public void setMaxTokenLength(final int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("maxTokenLength must be greater than zero");
+        } else if (length > MAX_TOKEN_LENGTH_LIMIT) {
+            throw new IllegalArgumentException("maxTokenLength may not exceed " + MAX_TOKEN_LENGTH_LIMIT);
+        }
+        maxTokenLength = length;
+    }
+
+    /**
+     * Gets the maximum length of a concatenated term.
+     *
+     * @return the maximum term length
+     */
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * Sets the maximum number of tokens concatenated into one term.
+     *
+     * @param count the maximum number of tokens (must be greater than zero)
+     * @throws IllegalArgumentException if count is invalid
+     */
+    public void setMaxTokenCount(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("maxTokenCount must be greater than zero");
+        }
+        maxTokenCount = count;
+    }
+
+    /**
+     * Gets the maximum number of tokens concatenated into one term.
+     *
+     * @return the maximum number of tokens
+     */
+    public int getMaxTokenCount() {
+        return maxTokenCount;
+    }
+
 }
@@ -67,17 +67,66 @@ public abstract class StopTokenFilter extends FilteringTokenFilter {
 
     @Override
     protected boolean accept() throws IOException {
-        // Convert to String once and reuse
-        String text = termAtt.toString();
-        if (ignoreCase) {
-            text = text.toLowerCase(Locale.ROOT);
+        final char[] buffer = termAtt.buffer();
+        final int length = termAtt.length();
+        if (ignoreCase && hasContextualLowerCase(buffer, length)) {
+            // String#toLowerCase maps these characters differently than Character#toLowerCase
+            return !matches(termAtt.toString().toLowerCase(Locale.ROOT));
+        }
+        return !matches(buffer, length);
+    }
+
+    /**
+     * Checks whether the text contains characters whose lowercase form depends on their context
+     * or expands to several characters: U+0130 (Latin capital letter I with dot above) and
+     * U+03A3 (Greek capital letter sigma).
+     *
+     * @param buffer the buffer holding the text
+     * @param length the length of the text
+     * @return true if the text needs {@link String#toLowerCase(Locale)} to be lowercased correctly
+     */
+    private static boolean hasContextualLowerCase(final char[] buffer, final int length) {
+        for (int i = 0; i < length; i++) {
+            final char c = buffer[i];
+            if (c == '\u0130' || c == '\u03A3') {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Determines whether the current token matches any of the stop words, reading the term
+     * buffer in place. If ignoreCase is true, the buffer holds the original text and
+     * implementations must compare it case-insensitively, as {@link Character#toLowerCase(int)}
+     * does per code point.
+     * The default implementation converts the buffer to a String and calls {@link #matches(String)};
+     * subclasses may override it to avoid allocating per token.
+     *
+     * @param buffer the term buffer of the current token
+     * @param length the length of the current token
+     * @return true if the token should be filtered out (rejected)
+     */
+    protected boolean matches(final char[] buffer, final int length) {
+        final String text = new String(buffer, 0, length);
+        return matches(ignoreCase ? text.toLowerCase(Locale.ROOT) : text);
+    }
+
+    /**
+     * Determines whether the given text matches any of the stop words.
+     * The default implementation calls {@link #accept(String, String)} for each stop word;
+     * subclasses may override it with a faster lookup.
+     *
+     * @param text the current token's text (possibly converted to lowercase if ignoreCase is true)
+     * @return true if the token should be filtered out (rejected)
+     */
+    protected boolean matches(final String text) {
         for (String word : normalizedWords) {
             if (accept(text, word)) {
-                return false;
+                return true;
             }
         }
-        return true;
+        return false;
     }
 
     /**
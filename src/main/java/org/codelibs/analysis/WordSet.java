@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+/**
+ * A read-only set of words that can be queried with a region of a char array, such as the term
+ * buffer of a token. A {@link org.apache.lucene.analysis.CharArraySet} can be used as
+ * {@code set::contains}.
+ */
+@FunctionalInterface
+public interface WordSet {
+
+    /**
+     * Checks whether the text is one of the words.
+     *
+     * @param text the buffer holding the text
+     * @param offset the start of the text in the buffer
+     * @param length the length of the text
+     * @return true if the set contains the text
+     */
+    boolean contains(char[] text, int offset, int length);
+}
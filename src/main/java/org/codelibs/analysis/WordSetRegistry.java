@@ -0,0 +1,672 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.CharacterUtils;
+import org.apache.lucene.analysis.WordlistLoader;
+
+/**
+ * A process-wide registry of word sets loaded from files, shared by every filter that reads the same file
+ * with the same options. A file is parsed once and reloaded once when it changes, no matter how many
+ * analyzers, fields and threads use it.
+ *
+ * <p>A file is either a word list with one word per line, UTF-8 encoded, or a word list compiled by
+ * {@link CompiledWordSet}. Loaded sets are immutable.</p>
+ *
+ * <p>Files are reloaded by a background daemon thread, so filters never touch the file system while
+ * analyzing. The thread is woken up by a second daemon thread that waits on a {@link WatchService} for
+ * the directories of the files, and by every new handle. It also checks the modification times at the
+ * shortest interval requested by the handles of each file that are still in use, but not more often than
+ * every {@value #MIN_CHECK_INTERVAL} milliseconds, for file systems that do not report changes and for
+ * files replaced through symbolic links. A file that fails to load is
+ * logged once until it changes again, and the previous set is kept.</p>
+ *
+ * <p>Large word files can be updated incrementally through a delta file next to them, named after the file
+ * with {@value #DELTA_SUFFIX} appended. Each line of the delta file is a word prefixed with {@code +} to add
+ * it or {@code -} to remove it, applied in order on top of the words of the file. The delta file is
+ * append-only: only the lines appended since the last check are read, and they are applied to a small
+ * copy-on-write overlay while the words of the file are shared, so a reload costs time proportional to
+ * the change rather than to the size of the file. Truncating or replacing the delta file applies it again
+ * from the beginning, and modifying the file itself reloads it together with the whole delta file; to
+ * keep the overlay small, merge the delta into the file from time to time and truncate the delta.</p>
+ *
+ * <p>Token filters have no hook that tells when they are discarded for good ({@code close()} is called after
+ * every document), so the registry holds the handles weakly: each call of {@link #get(Path, boolean, long)}
+ * returns a new handle to the shared set, a set is freed once no filter references any of its handles,
+ * its entry is dropped from the registry at the next check, and it is loaded again the next time it is
+ * requested.</p>
+ */
+public final class WordSetRegistry {
+
+    private static final System.Logger logger = System.getLogger(WordSetRegistry.class.getName());
+
+    /** Name of the background reload thread */
+    static final String WATCHER_THREAD_NAME = "WordSetRegistry-watcher";
+
+    /** Name of the thread that waits for change notifications */
+    static final String EVENT_THREAD_NAME = "WordSetRegistry-events";
+
+    /** Suffix of the delta file of a word file */
+    public static final String DELTA_SUFFIX = ".delta";
+
+    /** Initial capacity for word sets loaded from text files */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Delay in milliseconds between a change notification and the check, so that a file being written can settle */
+    private static final long SETTLE_DELAY = 100;
+
+    /** Interval in milliseconds between checks when no handle asks for a shorter one */
+    private static final long DEFAULT_CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /** Shortest interval in milliseconds between checks of a file */
+    public static final long MIN_CHECK_INTERVAL = 100;
+
+    /** Source of the generation numbers of loaded word sets */
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    /** Slot of each loaded file and options */
+    private static final ConcurrentHashMap<Key, Slot> SLOTS = new ConcurrentHashMap<>();
+
+    /** Monitor the reload thread waits on, guarding the check times of the sources */
+    private static final Object WAKEUP = new Object();
+
+    /** Directories registered with the watch service */
+    private static final Set<Path> WATCHED_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    /** Watch service for the default file system, or null if it is not available */
+    private static WatchService watchService;
+
+    /** The background reload thread, started with the first handle */
+    private static Thread watcherThread;
+
+    private WordSetRegistry() {
+    }
+
+    /**
+     * Returns a new handle to the shared word set of the file, loading the file if no handle of it is in
+     * use. The word set is kept up to date by the background thread, which checks the file at the shortest
+     * interval of the handles still in use.
+     *
+     * @param path the word file
+     * @param ignoreCase whether the words are matched case-insensitively; a compiled file must have been
+     *        compiled with the same option
+     * @param checkInterval the maximum interval in milliseconds between checks of the file's modification time;
+     *        intervals shorter than {@value #MIN_CHECK_INTERVAL} are raised to it
+     * @return the handle
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is compiled with another case sensitivity
+     */
+    public static Handle get(final Path path, final boolean ignoreCase, final long checkInterval) throws IOException {
+        final Path normalizedPath = path.toAbsolutePath().normalize();
+        final Key key = new Key(normalizedPath, ignoreCase);
+        Handle handle = null;
+        while (handle == null) {
+            final Slot slot = SLOTS.computeIfAbsent(key, k -> new Slot());
+            synchronized (slot) {
+                // a removed slot is no longer checked by the reload thread, so retry with a new one
+                if (!slot.removed) {
+                    Source source = slot.source.get();
+                    if (source == null) {
+                        source = new Source(normalizedPath, ignoreCase);
+                        slot.source = new WeakReference<>(source);
+                    }
+                    handle = source.newHandle(Math.max(MIN_CHECK_INTERVAL, checkInterval));
+                }
+            }
+        }
+        startWatching(normalizedPath);
+        return handle;
+    }
+
+    /**
+     * Returns whether the registry holds an entry for the file and options.
+     *
+     * @param path the word file
+     * @param ignoreCase whether the words are matched case-insensitively
+     * @return true if the file has a slot in the registry
+     */
+    static boolean isRegistered(final Path path, final boolean ignoreCase) {
+        return SLOTS.containsKey(new Key(path.toAbsolutePath().normalize(), ignoreCase));
+    }
+
+    private static WordSet load(final Path path, final boolean ignoreCase) throws IOException {
+        if (CompiledWordSet.isCompiled(path)) {
+            final CompiledWordSet wordSet = CompiledWordSet.open(path);
+            if (wordSet.isIgnoreCase() != ignoreCase) {
+                throw new IllegalArgumentException("Word file is compiled with ignoreCase=" + wordSet.isIgnoreCase() + ": " + path);
+            }
+            return wordSet;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            final CharArraySet wordSet = WordlistLoader.getWordSet(reader, new CharArraySet(INITIAL_CAPACITY, ignoreCase));
+            return CharArraySet.unmodifiableSet(wordSet)::contains;
+        }
+    }
+
+    private static synchronized void startWatching(final Path path) {
+        if (watcherThread == null) {
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (final IOException | UnsupportedOperationException e) {
+                logger.log(Level.DEBUG, "File system notifications are not available; falling back to polling.", e);
+            }
+            watcherThread = new Thread(WordSetRegistry::watch, WATCHER_THREAD_NAME);
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+            if (watchService != null) {
+                final Thread eventThread = new Thread(WordSetRegistry::dispatchEvents, EVENT_THREAD_NAME);
+                eventThread.setDaemon(true);
+                eventThread.start();
+            }
+        }
+        final Path directory = path.getParent();
+        if (watchService != null && directory != null && path.getFileSystem() == FileSystems.getDefault()
+                && WATCHED_DIRECTORIES.add(directory)) {
+            try {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (final IOException e) {
+                logger.log(Level.DEBUG, () -> "Cannot watch " + directory + "; falling back to polling.", e);
+            }
+        }
+        // the new handle may ask for a shorter interval than the reload thread is waiting for
+        synchronized (WAKEUP) {
+            WAKEUP.notifyAll();
+        }
+    }
+
+    private static void watch() {
+        final List<Source> due = new ArrayList<>();
+        while (true) {
+            try {
+                synchronized (WAKEUP) {
+                    final long now = System.currentTimeMillis();
+                    long next = now + DEFAULT_CHECK_INTERVAL;
+                    for (final Map.Entry<Key, Slot> e : SLOTS.entrySet()) {
+                        final Source source = e.getValue().source.get();
+                        if (source == null) {
+                            removeIfCleared(e.getKey(), e.getValue());
+                            continue;
+                        }
+                        final long nextCheck = source.nextCheck();
+                        if (nextCheck <= now) {
+                            source.lastCheck = now;
+                            source.notifiedCheck = Long.MAX_VALUE;
+                            due.add(source);
+                        } else {
+                            next = Math.min(next, nextCheck);
+                        }
+                    }
+                    if (due.isEmpty()) {
+                        WAKEUP.wait(next - now);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                logger.log(Level.WARNING, "Word file watcher was interrupted; files are no longer reloaded.");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                logger.log(Level.WARNING, "Failed to watch word files.", e);
+            }
+
+            // reloaded outside the monitor, so that notifications and new handles are not blocked by the file system
+            for (final Source source : due) {
+                source.reload();
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Removes the slot of a file once no filter uses its word set, so that the keys of files that are no longer
+     * used do not accumulate.
+     *
+     * @param key the key of the slot
+     * @param slot the slot
+     */
+    private static void removeIfCleared(final Key key, final Slot slot) {
+        synchronized (slot) {
+            if (slot.source.get() == null) {
+                slot.removed = true;
+                SLOTS.remove(key, slot);
+            }
+        }
+    }
+
+    private static void dispatchEvents() {
+        while (true) {
+            try {
+                final WatchKey key = watchService.take();
+                final Path directory = (Path) key.watchable();
+                final List<WatchEvent<?>> events = key.pollEvents();
+                key.reset();
+                synchronized (WAKEUP) {
+                    for (final WatchEvent<?> event : events) {
+                        final Path changed = event.kind() == StandardWatchEventKinds.OVERFLOW ? null : directory.resolve((Path) event.context());
+                        for (final Slot slot : SLOTS.values()) {
+                            final Source source = slot.source.get();
+                            if (source != null && (changed == null ? directory.equals(source.path.getParent())
+                                    : changed.equals(source.path) || changed.equals(source.deltaPath))) {
+                                source.notifiedCheck = Math.min(source.notifiedCheck, System.currentTimeMillis() + SETTLE_DELAY);
+                            }
+                        }
+                    }
+                    WAKEUP.notifyAll();
+                }
+            } catch (final InterruptedException | ClosedWatchServiceException e) {
+                logger.log(Level.WARNING, "Word file notifications stopped; files are only checked periodically.");
+                return;
+            } catch (final Exception e) {
+                logger.log(Level.WARNING, "Failed to watch word files.", e);
+            }
+        }
+    }
+
+    /**
+     * A reference to the shared word set of a file, updated in the background when the file changes.
+     * A new set is published with a single atomic swap, so every filter sees it at its next reset.
+     * Filters must keep a reference to their handle while they use it; the file is checked at the
+     * shortest interval of the handles that are still referenced.
+     */
+    public static final class Handle {
+
+        /** The shared word set */
+        private final Source source;
+
+        /** Interval in milliseconds between modification time checks requested by this handle */
+        private final long checkInterval;
+
+        Handle(final Source source, final long checkInterval) {
+            this.source = source;
+            this.checkInterval = checkInterval;
+        }
+
+        /**
+         * Returns the current word set of the file.
+         *
+         * @return the current word set
+         */
+        public Entry get() {
+            return source.entry.get();
+        }
+
+        /**
+         * Returns the generation of the current word set of the file.
+         *
+         * @return the generation number
+         */
+        public long getGeneration() {
+            return source.entry.get().generation;
+        }
+
+        /**
+         * Returns the interval at which the file is currently checked, the shortest of the handles in use.
+         *
+         * @return the interval in milliseconds
+         */
+        long getEffectiveCheckInterval() {
+            return source.checkInterval();
+        }
+
+        /**
+         * Returns the number of checks of the file completed by the background thread.
+         *
+         * @return the number of checks
+         */
+        long getCheckCount() {
+            return source.checkCount;
+        }
+    }
+
+    /**
+     * The word set of a file, shared by all handles of the file and options.
+     */
+    private static final class Source {
+
+        /** The absolute, normalized path of the file */
+        private final Path path;
+
+        /** The delta file next to the file */
+        private final Path deltaPath;
+
+        /** Whether the words are matched case-insensitively */
+        private final boolean ignoreCase;
+
+        /** The current word set */
+        private final AtomicReference<Entry> entry;
+
+        /** Handles of this set, held weakly so that the interval follows the handles in use */
+        private final List<WeakReference<Handle>> handles = new ArrayList<>();
+
+        /** Time of the last modification time check; guarded by WAKEUP */
+        private long lastCheck = System.currentTimeMillis();
+
+        /** Time of the check requested by a change notification; guarded by WAKEUP */
+        private long notifiedCheck = Long.MAX_VALUE;
+
+        /** Number of checks completed; only written by the background thread */
+        private volatile long checkCount;
+
+        /** File time and key of the file when it last failed to reload, to log a failure once */
+        private List<Object> failedVersion;
+
+        /** Words loaded from the file */
+        private WordSet base;
+
+        /** Last modification time of the file when it was loaded */
+        private FileTime baseModified;
+
+        /** File key of the delta file, to detect when it is replaced */
+        private Object deltaKey;
+
+        /** Number of bytes of the delta file applied so far */
+        private long deltaOffset;
+
+        /** Words added by the delta file, lowercased if case is ignored */
+        private final Set<String> added = new HashSet<>();
+
+        /** Words removed by the delta file, lowercased if case is ignored */
+        private final Set<String> removed = new HashSet<>();
+
+        Source(final Path path, final boolean ignoreCase) throws IOException {
+            this.path = path;
+            this.deltaPath = path.resolveSibling(path.getFileName() + DELTA_SUFFIX);
+            this.ignoreCase = ignoreCase;
+            synchronized (this) {
+                loadBase();
+                readDelta();
+                entry = new AtomicReference<>(createEntry());
+            }
+        }
+
+        private synchronized Handle newHandle(final long checkInterval) {
+            final Handle handle = new Handle(this, checkInterval);
+            handles.add(new WeakReference<>(handle));
+            return handle;
+        }
+
+        /**
+         * Returns the shortest check interval of the handles in use, dropping the handles that are gone.
+         *
+         * @return the interval in milliseconds
+         */
+        private synchronized long checkInterval() {
+            long interval = DEFAULT_CHECK_INTERVAL;
+            for (final Iterator<WeakReference<Handle>> it = handles.iterator(); it.hasNext();) {
+                final Handle handle = it.next().get();
+                if (handle == null) {
+                    it.remove();
+                } else {
+                    interval = Math.min(interval, handle.checkInterval);
+                }
+            }
+            return interval;
+        }
+
+        private long nextCheck() {
+            return Math.min(notifiedCheck, lastCheck + checkInterval());
+        }
+
+        private synchronized void reload() {
+            try {
+                final Entry current = entry.get();
+                final boolean changed;
+                if (Files.getLastModifiedTime(path).compareTo(baseModified) > 0) {
+                    loadBase();
+                    clearDelta();
+                    readDelta();
+                    changed = true;
+                } else {
+                    changed = readDelta();
+                }
+                if (changed) {
+                    final Entry loaded = createEntry();
+                    if (entry.compareAndSet(current, loaded)) {
+                        logger.log(Level.DEBUG, () -> "Reloaded " + path + " as generation " + loaded.generation);
+                    }
+                }
+                failedVersion = null;
+            } catch (final Exception e) {
+                // the file is retried at every check, but a failure is only worth a warning once per version
+                final List<Object> version = version();
+                if (version.equals(failedVersion)) {
+                    logger.log(Level.DEBUG, () -> "Failed to reload " + path + " again: " + e);
+                } else {
+                    failedVersion = version;
+                    logger.log(Level.WARNING, () -> "Failed to reload " + path + "; keeping the previous words.", e);
+                }
+            }
+            checkCount++;
+        }
+
+        /**
+         * Returns the modification time and file key of the file and its delta file, or nulls for the
+         * attributes that cannot be read.
+         *
+         * @return the version of the files
+         */
+        private List<Object> version() {
+            final List<Object> version = new ArrayList<>(4);
+            for (final Path file : new Path[] { path, deltaPath }) {
+                try {
+                    final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    version.add(attributes.lastModifiedTime());
+                    version.add(attributes.fileKey());
+                } catch (final IOException e) {
+                    version.add(null);
+                    version.add(null);
+                }
+            }
+            return version;
+        }
+
+        private void loadBase() throws IOException {
+            // read before loading, so that a modification during loading is picked up next time
+            final FileTime lastModified = Files.getLastModifiedTime(path);
+            base = load(path, ignoreCase);
+            baseModified = lastModified;
+        }
+
+        private void clearDelta() {
+            added.clear();
+            removed.clear();
+            deltaOffset = 0;
+            deltaKey = null;
+        }
+
+        /**
+         * Applies the lines appended to the delta file since the last call. Only complete lines are applied,
+         * so a line being appended is picked up by a later call.
+         *
+         * @return true if the words changed
+         * @throws IOException if the delta file cannot be read
+         */
+        private boolean readDelta() throws IOException {
+            final boolean hadDelta = deltaOffset > 0;
+            if (!Files.exists(deltaPath)) {
+                clearDelta();
+                return hadDelta;
+            }
+            final BasicFileAttributes attributes = Files.readAttributes(deltaPath, BasicFileAttributes.class);
+            boolean changed = false;
+            if (attributes.size() < deltaOffset || !Objects.equals(attributes.fileKey(), deltaKey)) {
+                // truncated or replaced, so apply it from the beginning
+                clearDelta();
+                deltaKey = attributes.fileKey();
+                changed = hadDelta;
+            }
+            if (attributes.size() == deltaOffset) {
+                return changed;
+            }
+
+            final byte[] bytes;
+            try (FileChannel channel = FileChannel.open(deltaPath, StandardOpenOption.READ)) {
+                channel.position(deltaOffset);
+                bytes = Channels.newInputStream(channel).readAllBytes();
+            }
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            if (end == 0) {
+                return changed;
+            }
+            for (final String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                applyDelta(line.trim());
+            }
+            deltaOffset += end;
+            return true;
+        }
+
+        private void applyDelta(final String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            final char[] word = line.substring(1).trim().toCharArray();
+            if (word.length == 0) {
+                return;
+            }
+            if (ignoreCase) {
+                CharacterUtils.toLowerCase(word, 0, word.length);
+            }
+            final String normalized = new String(word);
+            switch (line.charAt(0)) {
+            case '+':
+                removed.remove(normalized);
+                added.add(normalized);
+                break;
+            case '-':
+                added.remove(normalized);
+                removed.add(normalized);
+                break;
+            default:
+                logger.log(Level.WARNING, () -> "Ignoring a line without + or - in " + deltaPath + ": " + line);
+                break;
+            }
+        }
+
+        private Entry createEntry() {
+            final WordSet wordSet;
+            if (added.isEmpty() && removed.isEmpty()) {
+                wordSet = base;
+            } else {
+                // copy-on-write: the overlay is rebuilt from the changes only, the base words are shared
+                final CharArraySet addedSet = CharArraySet.unmodifiableSet(new CharArraySet(added, ignoreCase));
+                final CharArraySet removedSet = CharArraySet.unmodifiableSet(new CharArraySet(removed, ignoreCase));
+                final WordSet baseSet = base;
+                wordSet = (text, offset, length) -> !removedSet.contains(text, offset, length)
+                        && (addedSet.contains(text, offset, length) || baseSet.contains(text, offset, length));
+            }
+            return new Entry(wordSet, baseModified, GENERATIONS.incrementAndGet());
+        }
+    }
+
+    /**
+     * An immutable word set loaded from a file and its delta file. Each load gets a new generation number; generations are
+     * unique in the process and increase with every load, so a reloaded file always has a higher generation.
+     */
+    public static final class Entry implements WordSet {
+
+        /** The loaded words */
+        private final WordSet wordSet;
+
+        /** Last modification time of the file when it was loaded */
+        private final FileTime lastModified;
+
+        /** Generation number of this load */
+        private final long generation;
+
+        Entry(final WordSet wordSet, final FileTime lastModified, final long generation) {
+            this.wordSet = wordSet;
+            this.lastModified = lastModified;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean contains(final char[] text, final int offset, final int length) {
+            return wordSet.contains(text, offset, length);
+        }
+
+        /**
+         * Returns the last modification time of the file when it was loaded.
+         *
+         * @return the modification time in milliseconds since the epoch
+         */
+        public long getLastModified() {
+            return lastModified.toMillis();
+        }
+
+        /**
+         * Returns the generation number of this load.
+         *
+         * @return the generation number
+         */
+        public long getGeneration() {
+            return generation;
+        }
+    }
+
+    /**
+     * Holds the current word set of a file and options, and serializes its creation.
+     */
+    private static final class Slot {
+
+        /** The current word set, cleared once no filter uses any of its handles */
+        volatile WeakReference<Source> source = new WeakReference<>(null);
+
+        /** Whether the slot was removed from the registry; guarded by the slot */
+        boolean removed;
+    }
+
+    /**
+     * Identifies a file and the options it is loaded with.
+     *
+     * @param path the absolute, normalized path of the file
+     * @param ignoreCase whether case is ignored
+     */
+    private record Key(Path path, boolean ignoreCase) {
+    }
+}
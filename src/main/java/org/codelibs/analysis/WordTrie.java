@@ -0,0 +1,224 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * An immutable trie over a set of words that finds whether any of the words is a prefix of a text,
+ * or a suffix if the trie is built reversed. Matching costs O(text length) regardless of the number
+ * of words.
+ *
+ * <p>The trie is stored in flat arrays: the edges of each node are contiguous and sorted by label,
+ * so a transition is a binary search over the labels of one node. Words that have a shorter word as
+ * their prefix are dropped, because the shorter word always matches first.</p>
+ */
+public final class WordTrie {
+
+    /** Whether the words are matched against the end of the text */
+    private final boolean reverse;
+
+    /** Index of the first edge of each node */
+    private int[] firstEdge = new int[16];
+
+    /** Number of edges of each node */
+    private int[] edgeCount = new int[16];
+
+    /** Whether a word ends at each node */
+    private boolean[] terminal = new boolean[16];
+
+    /** Label of each edge */
+    private char[] labels = new char[16];
+
+    /** Target node of each edge */
+    private int[] targets = new int[16];
+
+    private int numNodes;
+
+    private int numEdges;
+
+    /**
+     * Builds a trie over the given words.
+     *
+     * @param words the words to match
+     * @param reverse true to match the words against the end of the text instead of the beginning
+     */
+    public WordTrie(final String[] words, final boolean reverse) {
+        this.reverse = reverse;
+        final String[] sorted = new String[words.length];
+        for (int i = 0; i < words.length; i++) {
+            sorted[i] = reverse ? reverse(words[i]) : words[i];
+        }
+        Arrays.sort(sorted);
+        build(sorted, 0, sorted.length, 0);
+    }
+
+    private static String reverse(final String word) {
+        // StringBuilder#reverse keeps surrogate pairs in order, but matching walks the text char by char
+        final char[] chars = new char[word.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = word.charAt(chars.length - 1 - i);
+        }
+        return new String(chars);
+    }
+
+    private int build(final String[] words, int lo, final int hi, final int depth) {
+        final int node = numNodes++;
+        if (node == terminal.length) {
+            firstEdge = ArrayUtil.grow(firstEdge, numNodes);
+            edgeCount = ArrayUtil.grow(edgeCount, numNodes);
+            terminal = Arrays.copyOf(terminal, firstEdge.length);
+        }
+        if (lo < hi && words[lo].length() == depth) {
+            // Longer words starting with this word can never be reached.
+            terminal[node] = true;
+            return node;
+        }
+
+        int groups = 0;
+        for (int i = lo; i < hi; i = skip(words, i, hi, depth)) {
+            groups++;
+        }
+        final int edge = numEdges;
+        numEdges += groups;
+        if (numEdges > labels.length) {
+            labels = ArrayUtil.grow(labels, numEdges);
+            targets = Arrays.copyOf(targets, labels.length);
+        }
+        firstEdge[node] = edge;
+        edgeCount[node] = groups;
+
+        for (int e = edge; lo < hi; e++) {
+            final int next = skip(words, lo, hi, depth);
+            labels[e] = words[lo].charAt(depth);
+            // build may replace the arrays, so assign after it returns
+            final int target = build(words, lo, next, depth + 1);
+            targets[e] = target;
+            lo = next;
+        }
+        return node;
+    }
+
+    private static int skip(final String[] words, final int lo, final int hi, final int depth) {
+        final char c = words[lo].charAt(depth);
+        int i = lo + 1;
+        while (i < hi && words[i].charAt(depth) == c) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether any of the words is a prefix of the text, or a suffix if the trie is reversed.
+     *
+     * @param text the text to check
+     * @return true if a word matches
+     */
+    public boolean matches(final CharSequence text) {
+        final int length = text.length();
+        int node = 0;
+        for (int i = 0; !terminal[node]; i++) {
+            if (i == length) {
+                return false;
+            }
+            node = step(node, text.charAt(reverse ? length - 1 - i : i));
+            if (node < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any of the words is a prefix of the text in the buffer, or a suffix if the trie
+     * is reversed, without copying it.
+     *
+     * @param buffer the buffer holding the text
+     * @param offset the start of the text in the buffer
+     * @param length the length of the text
+     * @param lowerCase true to compare each code point of the text as converted by {@link Character#toLowerCase(int)}
+     * @return true if a word matches
+     */
+    public boolean matches(final char[] buffer, final int offset, final int length, final boolean lowerCase) {
+        if (!lowerCase) {
+            int node = 0;
+            for (int i = 0; !terminal[node]; i++) {
+                if (i == length) {
+                    return false;
+                }
+                node = step(node, buffer[reverse ? offset + length - 1 - i : offset + i]);
+                if (node < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final int end = offset + length;
+        int node = 0;
+        int pos = reverse ? end : offset;
+        while (!terminal[node]) {
+            if (pos == (reverse ? offset : end)) {
+                return false;
+            }
+            final int cp;
+            if (reverse) {
+                cp = Character.codePointBefore(buffer, pos, offset);
+                pos -= Character.charCount(cp);
+            } else {
+                cp = Character.codePointAt(buffer, pos, end);
+                pos += Character.charCount(cp);
+            }
+            final int lower = Character.toLowerCase(cp);
+            if (Character.isBmpCodePoint(lower)) {
+                node = step(node, (char) lower);
+            } else if (reverse) {
+                node = step(node, Character.lowSurrogate(lower));
+                if (node >= 0 && !terminal[node]) {
+                    node = step(node, Character.highSurrogate(lower));
+                }
+            } else {
+                node = step(node, Character.highSurrogate(lower));
+                if (node >= 0 && !terminal[node]) {
+                    node = step(node, Character.lowSurrogate(lower));
+                }
+            }
+            if (node < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int step(final int node, final char c) {
+        int lo = firstEdge[node];
+        int hi = lo + edgeCount[node] - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return targets[mid];
+            }
+        }
+        return -1;
+    }
+}
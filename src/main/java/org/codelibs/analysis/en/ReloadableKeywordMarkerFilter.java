@@ -15,28 +15,33 @@
  */
 package org.codelibs.analysis.en;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
-import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.WordlistLoader;
 import org.apache.lucene.analysis.miscellaneous.KeywordMarkerFilter;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.analysis.CompiledWordSet;
+import org.codelibs.analysis.WordSetRegistry;
 
 /**
  * A keyword marker filter that can dynamically reload its keyword set from a file.
  * This filter extends Lucene's KeywordMarkerFilter and adds the capability to automatically
  * reload the keyword list from a specified file path when the file is modified.
  *
- * <p>The filter monitors the keyword file for changes and reloads the keyword set based on
- * a configurable reload interval. This allows for dynamic updates to the keyword list without
- * requiring analyzer or application restart.</p>
+ * <p>The keyword file is monitored for changes by a background thread, which reloads the keyword set
+ * when the file system reports a change or, at the latest, after the configured reload interval. This
+ * allows for dynamic updates to the keyword list without requiring analyzer or application restart.
+ * The filter itself never accesses the file while analyzing: it picks up the latest set when it is
+ * reset, and a file that fails to load is logged while the previous set stays in use.</p>
  *
- * <p>Keywords are loaded from a text file with one keyword per line, using UTF-8 encoding.</p>
+ * <p>Keywords are loaded from a text file with one keyword per line, using UTF-8 encoding.
+ * The file can also be a case-sensitive keyword list compiled by {@link CompiledWordSet}, which is
+ * memory mapped instead of being loaded into the heap.</p>
+ *
+ * <p>The keyword set is loaded through {@link WordSetRegistry}, so all filters reading the same file
+ * share a single set. Large files can also be updated incrementally through
+ * an append-only delta file, as described in {@link WordSetRegistry}.</p>
  */
 public class ReloadableKeywordMarkerFilter extends KeywordMarkerFilter {
 
@@ -44,34 +49,32 @@ public class ReloadableKeywordMarkerFilter extends KeywordMarkerFilter {
     private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
 
     /** Set containing the current keywords loaded from file */
-    private CharArraySet keywordSet;
+    private WordSetRegistry.Entry keywordSet;
+
+    /** Handle to the shared, automatically reloaded keyword set */
+    private final WordSetRegistry.Handle keywordSetHandle;
 
     /** Path to the file containing keywords */
     private final Path keywordPath;
 
-    /** Interval in milliseconds between reload checks */
-    private long reloadInterval;
-
-    /** Timestamp when the next reload check should occur */
-    private long expiry;
-
-    /** Last modification time of the keyword file when it was loaded */
-    private long lastModified;
-
     /**
      * Constructs a ReloadableKeywordMarkerFilter with the specified input stream, keyword file path, and reload interval.
      *
      * @param in the input TokenStream to filter
      * @param keywordPath the Path to the file containing keywords (one per line, UTF-8 encoded)
-     * @param reloadInterval the interval in milliseconds between checks for file modifications
+     * @param reloadInterval the maximum interval in milliseconds between checks for file modifications; intervals shorter
+     *        than {@link WordSetRegistry#MIN_CHECK_INTERVAL} are raised to it
      */
     public ReloadableKeywordMarkerFilter(TokenStream in, Path keywordPath, long reloadInterval) {
         super(in);
         this.keywordPath = keywordPath;
-        this.reloadInterval = reloadInterval;
 
-        loadKeywordSet();
-        expiry = System.currentTimeMillis() + reloadInterval;
+        try {
+            keywordSetHandle = WordSetRegistry.get(keywordPath, false, reloadInterval);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read keyword file: " + keywordPath, e);
+        }
+        keywordSet = keywordSetHandle.get();
     }
 
     @Override
@@ -81,22 +84,19 @@ public class ReloadableKeywordMarkerFilter extends KeywordMarkerFilter {
 
     @Override
     public void reset() throws IOException {
-        if (expiry < System.currentTimeMillis()) {
-            if (Files.getLastModifiedTime(keywordPath).toMillis() > lastModified) {
-                loadKeywordSet();
-            }
-            expiry = System.currentTimeMillis() + reloadInterval;
-        }
+        // pick up the latest keyword set once per document
+        keywordSet = keywordSetHandle.get();
         super.reset();
     }
 
-    private void loadKeywordSet() {
-        try (BufferedReader reader = Files.newBufferedReader(keywordPath, StandardCharsets.UTF_8)) {
-            keywordSet = WordlistLoader.getWordSet(reader);
-            lastModified = Files.getLastModifiedTime(keywordPath).toMillis();
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to read keyword file: " + keywordPath, e);
-        }
+    /**
+     * Returns the generation of the keyword set used for the current document, as assigned by
+     * {@link WordSetRegistry}. It can be recorded to find out which version of the file analyzed a document.
+     *
+     * @return the generation number
+     */
+    public long getGeneration() {
+        return keywordSet.getGeneration();
     }
 
 }
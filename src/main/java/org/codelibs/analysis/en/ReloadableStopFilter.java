@@ -15,72 +15,72 @@
  */
 package org.codelibs.analysis.en;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
-import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.FilteringTokenFilter;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.WordlistLoader;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.codelibs.analysis.CompiledWordSet;
+import org.codelibs.analysis.WordSetRegistry;
 
 /**
  * A stop word filter that can dynamically reload its stop word set from a file.
  * This filter extends Lucene's FilteringTokenFilter and adds the capability to automatically
  * reload the stop word list from a specified file path when the file is modified.
  *
- * <p>The filter monitors the stop word file for changes and reloads the stop word set based on
- * a configurable reload interval. This allows for dynamic updates to the stop word list without
- * requiring analyzer or application restart.</p>
+ * <p>The stop word file is monitored for changes by a background thread, which reloads the stop word set
+ * when the file system reports a change or, at the latest, after the configured reload interval. This
+ * allows for dynamic updates to the stop word list without requiring analyzer or application restart.
+ * The filter itself never accesses the file while analyzing: it picks up the latest set when it is
+ * reset, and a file that fails to load is logged while the previous set stays in use.</p>
  *
  * <p>Stop words are loaded from a text file with one stop word per line, using UTF-8 encoding.
- * The filter can be configured to perform case-sensitive or case-insensitive matching.</p>
+ * The filter can be configured to perform case-sensitive or case-insensitive matching.
+ * The file can also be a word list compiled by {@link CompiledWordSet}, which is memory mapped
+ * instead of being loaded into the heap; it must be compiled with the same case sensitivity.</p>
+ *
+ * <p>The stop word set is loaded through {@link WordSetRegistry}, so all filters reading the same file
+ * with the same case sensitivity share a single set. Large files can also be updated incrementally
+ * through an append-only delta file, as described in {@link WordSetRegistry}.</p>
  */
 public class ReloadableStopFilter extends FilteringTokenFilter {
 
-    /** Initial capacity for the stop word set */
-    private static final int INITIAL_CAPACITY = 16;
-
     /** Character term attribute for accessing the current token's text */
     private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
 
     /** Set containing the current stop words loaded from file */
-    private CharArraySet stopWords;
+    private WordSetRegistry.Entry stopWords;
+
+    /** Handle to the shared, automatically reloaded stop word set */
+    private final WordSetRegistry.Handle stopWordsHandle;
 
     /** Path to the file containing stop words */
     private final Path stopWordPath;
 
-    /** Interval in milliseconds between reload checks */
-    private long reloadInterval;
-
-    /** Timestamp when the next reload check should occur */
-    private long expiry;
-
     /** Whether to ignore case when matching stop words */
     private boolean ignoreCase;
 
-    /** Last modification time of the stop word file when it was loaded */
-    private long lastModified;
-
     /**
      * Constructs a ReloadableStopFilter with the specified input stream, stop word file path, case sensitivity, and reload interval.
      *
      * @param in the input TokenStream to filter
      * @param stopwordPath the Path to the file containing stop words (one per line, UTF-8 encoded)
      * @param ignoreCase whether to ignore case when matching stop words
-     * @param reloadInterval the interval in milliseconds between checks for file modifications
+     * @param reloadInterval the maximum interval in milliseconds between checks for file modifications; intervals shorter
+     *        than {@link WordSetRegistry#MIN_CHECK_INTERVAL} are raised to it
      */
     public ReloadableStopFilter(TokenStream in, Path stopwordPath, boolean ignoreCase, long reloadInterval) {
         super(in);
         this.stopWordPath = stopwordPath;
         this.ignoreCase = ignoreCase;
-        this.reloadInterval = reloadInterval;
 
-        loadStopWordSet();
-        expiry = System.currentTimeMillis() + reloadInterval;
+        try {
+            stopWordsHandle = WordSetRegistry.get(stopWordPath, ignoreCase, reloadInterval);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read stop word file: " + stopWordPath, e);
+        }
+        stopWords = stopWordsHandle.get();
     }
 
     @Override
@@ -90,22 +90,19 @@ public class ReloadableStopFilter extends FilteringTokenFilter {
 
     @Override
     public void reset() throws IOException {
-        if (expiry < System.currentTimeMillis()) {
-            if (Files.getLastModifiedTime(stopWordPath).toMillis() > lastModified) {
-                loadStopWordSet();
-            }
-            expiry = System.currentTimeMillis() + reloadInterval;
-        }
+        // pick up the latest stop word set once per document
+        stopWords = stopWordsHandle.get();
         super.reset();
     }
 
-    private void loadStopWordSet() {
-        try (BufferedReader reader = Files.newBufferedReader(stopWordPath, StandardCharsets.UTF_8)) {
-            stopWords = WordlistLoader.getWordSet(reader, new CharArraySet(INITIAL_CAPACITY, ignoreCase));
-            lastModified = Files.getLastModifiedTime(stopWordPath).toMillis();
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to read stop word file: " + stopWordPath, e);
-        }
+    /**
+     * Returns the generation of the stop word set used for the current document, as assigned by
+     * {@link WordSetRegistry}. It can be recorded to find out which version of the file analyzed a document.
+     *
+     * @return the generation number
+     */
+    public long getGeneration() {
+        return stopWords.getGeneration();
     }
 
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+
+/**
+ * A compiled set of (target, follower) pattern pairs for {@link MultiPatternConcatenationFilter}.
+ *
+ * <p>The target patterns of all rules are compiled into one deterministic automaton, and so are the
+ * follower patterns. Each pattern is followed by a marker character of its rule before the union, so
+ * the state reached at the end of a term tells which rules match it, and a term is matched against
+ * all rules in a single pass. The patterns are compiled with {@link PatternConcatenationFilter#compile(Pattern)}
+ * and must use the subset of the regular expression syntax it supports.</p>
+ *
+ * <p>Instances are immutable and can be shared by filters on any number of threads.</p>
+ */
+public final class ConcatenationRules {
+
+    /** The first marker character, in the Supplementary Private Use Area-B */
+    private static final int MARKER = 0x100000;
+
+    /** The maximum number of rules, limited by the number of marker characters */
+    public static final int MAX_RULES = 0xFFFE;
+
+    /** Number of rules */
+    private final int size;
+
+    /** Number of long words in a rule mask */
+    private final int words;
+
+    /** Combined automaton of the target patterns */
+    private final CharacterRunAutomaton targets;
+
+    /** Rules whose target pattern matches a term ending in each state of the target automaton */
+    private final long[] targetMasks;
+
+    /** Combined automaton of the follower patterns */
+    private final CharacterRunAutomaton followers;
+
+    /** Rules whose follower pattern matches a term ending in each state of the follower automaton */
+    private final long[] followerMasks;
+
+    /**
+     * Compiles the rules. Rule i concatenates a token matching targets[i] with a following token
+     * matching followers[i].
+     *
+     * @param targets the patterns of the tokens to concatenate to
+     * @param followers the patterns of the following tokens to concatenate
+     * @throws IllegalArgumentException if the arrays differ in length, are empty or too long, or a pattern
+     *         uses an unsupported construct
+     */
+    public ConcatenationRules(final Pattern[] targets, final Pattern[] followers) {
+        if (targets.length != followers.length) {
+            throw new IllegalArgumentException("targets and followers must have the same length: " + targets.length + " != " + followers.length);
+        } else if (targets.length == 0) {
+            throw new IllegalArgumentException("at least one rule is required");
+        } else if (targets.length > MAX_RULES) {
+            throw new IllegalArgumentException("the number of rules may not exceed " + MAX_RULES);
+        }
+        size = targets.length;
+        words = (size + 63) >>> 6;
+        this.targets = combine(targets);
+        targetMasks = masks(this.targets);
+        this.followers = combine(followers);
+        followerMasks = masks(this.followers);
+    }
+
+    private static CharacterRunAutomaton combine(final Pattern[] patterns) {
+        final List<Automaton> automata = new ArrayList<>(patterns.length);
+        for (int i = 0; i < patterns.length; i++) {
+            automata.add(Operations.concatenate(List.of(PatternConcatenationFilter.toAutomaton(patterns[i]), Automata.makeChar(MARKER + i))));
+        }
+        return new CharacterRunAutomaton(Operations.determinize(Operations.union(automata), Operations.DEFAULT_DETERMINIZE_WORK_LIMIT));
+    }
+
+    private long[] masks(final CharacterRunAutomaton automaton) {
+        final int states = automaton.getSize();
+        final long[] masks = new long[states * words];
+        for (int state = 0; state < states; state++) {
+            for (int rule = 0; rule < size; rule++) {
+                final int next = automaton.step(state, MARKER + rule);
+                if (next != -1 && automaton.isAccept(next)) {
+                    masks[state * words + (rule >>> 6)] |= 1L << rule;
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Returns the number of rules.
+     *
+     * @return the number of rules
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of long words needed for a mask of the rules.
+     *
+     * @return the length of a rule mask
+     */
+    int maskLength() {
+        return words;
+    }
+
+    /**
+     * Finds the rules whose target pattern matches the term.
+     *
+     * @param buffer the buffer holding the term
+     * @param length the length of the term
+     * @param mask the mask to set to the matching rules
+     * @return true if any rule matches
+     */
+    boolean matchTargets(final char[] buffer, final int length, final long[] mask) {
+        final int state = run(targets, buffer, length);
+        if (state == -1) {
+            Arrays.fill(mask, 0L);
+            return false;
+        }
+        System.arraycopy(targetMasks, state * words, mask, 0, words);
+        for (int i = 0; i < words; i++) {
+            if (mask[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the follower pattern of any of the given rules matches the term.
+     *
+     * @param buffer the buffer holding the term
+     * @param length the length of the term
+     * @param mask the rules to check, as set by {@link #matchTargets(char[], int, long[])}
+     * @return true if a rule matches
+     */
+    boolean matchesFollower(final char[] buffer, final int length, final long[] mask) {
+        final int state = run(followers, buffer, length);
+        if (state == -1) {
+            return false;
+        }
+        final int offset = state * words;
+        for (int i = 0; i < words; i++) {
+            if ((followerMasks[offset + i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int run(final CharacterRunAutomaton automaton, final char[] buffer, final int length) {
+        int state = 0;
+        for (int i = 0, cp; i < length && state != -1; i += Character.charCount(cp)) {
+            cp = Character.codePointAt(buffer, i, length);
+            state = automaton.step(state, cp);
+        }
+        return state;
+    }
+}
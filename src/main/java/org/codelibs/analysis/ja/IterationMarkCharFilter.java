@@ -16,7 +16,6 @@
 package org.codelibs.analysis.ja;
 
 import java.io.Reader;
-import java.lang.Character.UnicodeBlock;
 
 import org.codelibs.analysis.BufferedCharFilter;
 
@@ -50,6 +49,38 @@ public class IterationMarkCharFilter extends BufferedCharFilter {
 
     private static final char U303B = '〻';
 
+    /** First character of the Hiragana block */
+    private static final char HIRAGANA_START = '\u3040';
+
+    /** First character of the Katakana block */
+    private static final char KATAKANA_START = '\u30a0';
+
+    /** Last character of the Katakana block */
+    private static final char KATAKANA_END = '\u30ff';
+
+    /** Voiced kana indexed by the unvoiced kana minus HIRAGANA_START, or 0 if there is none */
+    private static final char[] VOICED = new char[KATAKANA_END - HIRAGANA_START + 1];
+
+    /** Unvoiced kana indexed by the voiced kana minus HIRAGANA_START, or 0 if there is none */
+    private static final char[] UNVOICED = new char[KATAKANA_END - HIRAGANA_START + 1];
+
+    static {
+        addVoicing(UNVOICED_CONSONANT_HIRAGANA, VOICED_SOUND_MARK_HIRAGANA);
+        addVoicing(UNVOICED_CONSONANT_KATAKANA, VOICED_SOUND_MARK_KATAKANA);
+    }
+
+    private static void addVoicing(final String unvoiced, final String voiced) {
+        for (int i = 0; i < unvoiced.length(); i++) {
+            final int u = unvoiced.charAt(i) - HIRAGANA_START;
+            final int v = voiced.charAt(i) - HIRAGANA_START;
+            // は, ひ, ふ, へ and ほ appear twice; the first pair (ば, び, ぶ, べ, ぼ) wins.
+            if (VOICED[u] == 0) {
+                VOICED[u] = voiced.charAt(i);
+            }
+            UNVOICED[v] = unvoiced.charAt(i);
+        }
+    }
+
     /**
      * Creates a new IterationMarkCharFilter.
      *
@@ -59,116 +90,103 @@ public class IterationMarkCharFilter extends BufferedCharFilter {
         super(in);
     }
 
+    /**
+     * Creates a new IterationMarkCharFilter that processes the input in windows of the given size.
+     *
+     * @param in the input reader
+     * @param windowSize the number of characters to process per window, or 0 to buffer the whole input
+     */
+    public IterationMarkCharFilter(final Reader in, final int windowSize) {
+        super(in, windowSize);
+    }
+
+    @Override
+    protected int getLookBehind() {
+        // 々々 repeats the two preceding characters
+        return 2;
+    }
+
+    @Override
+    protected int getLookAhead() {
+        // 々 checks whether the next character is also 々
+        return 1;
+    }
+
     @Override
     protected CharSequence processInput(final CharSequence input) {
-        final StringBuilder buf = new StringBuilder(input.length());
-        int pos = 0;
-        while (pos < input.length()) {
-            final char c = input.charAt(pos);
-            switch (c) {
-            case U3005:
-                if (pos + 1 < input.length()) {
-                    final char next = input.charAt(pos + 1);
-                    if (next == U3005) {
-                        if (pos - 2 >= 0) {
-                            final char prev2 = input.charAt(pos - 2);
-                            final char prev1 = input.charAt(pos - 1);
-                            if (UnicodeBlock.of(prev2) == UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS) {
-                                buf.append(prev2);
-                                buf.append(prev1);
-                            } else {
-                                buf.append(prev1);
-                                buf.append(prev1);
-                            }
-                            pos += 2;
-                        } else if (pos - 1 >= 0) {
-                            buf.append(input.charAt(pos - 1));
-                            buf.append(input.charAt(pos - 1));
-                            pos += 2;
-                        } else {
-                            buf.append(c);
-                            pos++;
-                        }
-                        break;
-                    }
-                }
-                if (pos - 1 >= 0) {
-                    buf.append(input.charAt(pos - 1));
-                } else {
-                    buf.append(c);
-                }
-                pos++;
-                break;
-            case U309D:
-                if (pos - 1 >= 0) {
-                    final char prev = input.charAt(pos - 1);
-                    final int index = VOICED_SOUND_MARK_HIRAGANA.indexOf(prev);
-                    if (index >= 0) {
-                        buf.append(UNVOICED_CONSONANT_HIRAGANA.charAt(index));
-                    } else {
-                        buf.append(prev);
-                    }
-                } else {
-                    buf.append(c);
-                }
-                pos++;
-                break;
-            case U309E:
-                if (pos - 1 >= 0) {
-                    final char prev = input.charAt(pos - 1);
-                    final int index = UNVOICED_CONSONANT_HIRAGANA.indexOf(prev);
-                    if (index >= 0) {
-                        buf.append(VOICED_SOUND_MARK_HIRAGANA.charAt(index));
-                    } else {
-                        buf.append(prev);
-                    }
-                } else {
-                    buf.append(c);
-                }
-                pos++;
-                break;
-            case U30FD:
-                if (pos - 1 >= 0) {
-                    final char prev = input.charAt(pos - 1);
-                    final int index = VOICED_SOUND_MARK_KATAKANA.indexOf(prev);
-                    if (index >= 0) {
-                        buf.append(UNVOICED_CONSONANT_KATAKANA.charAt(index));
-                    } else {
-                        buf.append(prev);
-                    }
-                } else {
-                    buf.append(c);
-                }
-                pos++;
-                break;
-            case U30FE:
-                if (pos - 1 >= 0) {
-                    final char prev = input.charAt(pos - 1);
-                    final int index = UNVOICED_CONSONANT_KATAKANA.indexOf(prev);
-                    if (index >= 0) {
-                        buf.append(VOICED_SOUND_MARK_KATAKANA.charAt(index));
-                    } else {
-                        buf.append(prev);
-                    }
-                } else {
-                    buf.append(c);
-                }
-                pos++;
-                break;
-            case U303B:
-                if (pos - 1 >= 0) {
-                    buf.append(input.charAt(pos - 1));
+        return processWhole(input);
+    }
+
+    @Override
+    protected int processInput(final char[] input, final int start, final int end, final int length) {
+        int pos = start;
+        while (pos < end) {
+            final char c = input[pos];
+            if (c == U3005 && pos + 1 < length && input[pos + 1] == U3005 && pos - 1 >= 0) {
+                // 々々 repeats the two preceding characters, or the preceding one twice
+                final char prev1 = input[pos - 1];
+                if (pos - 2 >= 0 && JapaneseCharClass.isKanji(input[pos - 2])) {
+                    append(input[pos - 2]);
                 } else {
-                    buf.append(c);
+                    append(prev1);
                 }
+                append(prev1);
+                pos += 2;
+            } else {
+                append(pos - 1 >= 0 && isIterationMark(c) ? iterate(c, input[pos - 1]) : c);
                 pos++;
-                break;
-            default:
-                buf.append(c);
-                pos++;
-                break;
             }
         }
-        return buf;
+        return pos;
+    }
+
+    /**
+     * Checks if the character is an iteration mark handled by this filter.
+     *
+     * @param c the character to check
+     * @return true if c is one of 々, ゝ, ゞ, ヽ, ヾ or 〻
+     */
+    static boolean isIterationMark(final char c) {
+        switch (c) {
+        case U3005:
+        case U309D:
+        case U309E:
+        case U30FD:
+        case U30FE:
+        case U303B:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns the character an iteration mark stands for.
+     *
+     * @param mark the iteration mark
+     * @param prev the character preceding the iteration mark
+     * @return the repeated character, voiced or unvoiced as the iteration mark requires
+     */
+    static char iterate(final char mark, final char prev) {
+        switch (mark) {
+        case U309D:
+            return lookup(UNVOICED, prev, HIRAGANA_START, KATAKANA_START);
+        case U309E:
+            return lookup(VOICED, prev, HIRAGANA_START, KATAKANA_START);
+        case U30FD:
+            return lookup(UNVOICED, prev, KATAKANA_START, KATAKANA_END + 1);
+        case U30FE:
+            return lookup(VOICED, prev, KATAKANA_START, KATAKANA_END + 1);
+        default:
+            return prev;
+        }
+    }
+
+    private static char lookup(final char[] table, final char c, final int start, final int end) {
+        if (c < start || c >= end) {
+            return c;
+        }
+        final char replaced = table[c - HIRAGANA_START];
+        return replaced != 0 ? replaced : c;
     }
 }
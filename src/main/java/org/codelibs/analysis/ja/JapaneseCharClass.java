@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.lang.Character.UnicodeBlock;
+
+/**
+ * Precomputed classification of the characters in the Basic Multilingual Plane, shared by the
+ * Japanese filters. Each check is a single array load instead of a {@link UnicodeBlock#of(char)}
+ * lookup, which searches all Unicode block ranges.
+ */
+final class JapaneseCharClass {
+
+    /** Hiragana, Katakana or Katakana Phonetic Extensions */
+    static final byte KANA = 1;
+
+    /** CJK Unified Ideographs */
+    static final byte KANJI = 2;
+
+    /** Classification flags indexed by character */
+    private static final byte[] TABLE = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            final UnicodeBlock block = UnicodeBlock.of((char) c);
+            if (block == UnicodeBlock.HIRAGANA || block == UnicodeBlock.KATAKANA || block == UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS) {
+                TABLE[c] = KANA;
+            } else if (block == UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS) {
+                TABLE[c] = KANJI;
+            }
+        }
+    }
+
+    private JapaneseCharClass() {
+    }
+
+    /**
+     * Checks if the character is in the Hiragana, Katakana or Katakana Phonetic Extensions block.
+     *
+     * @param c the character to check
+     * @return true if c is kana
+     */
+    static boolean isKana(final char c) {
+        return (TABLE[c] & KANA) != 0;
+    }
+
+    /**
+     * Checks if the character is in the CJK Unified Ideographs block.
+     *
+     * @param c the character to check
+     * @return true if c is a kanji
+     */
+    static boolean isKanji(final char c) {
+        return (TABLE[c] & KANJI) != 0;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.io.Reader;
+
+import org.codelibs.analysis.BufferedCharFilter;
+
+/**
+ * A character filter that applies the normalizations of {@link ProlongedSoundMarkCharFilter} and
+ * {@link IterationMarkCharFilter} in a single pass over one buffer.
+ *
+ * <p>The result is the same as chaining the two filters with the prolonged sound mark normalization
+ * applied first:</p>
+ * <pre>
+ * new IterationMarkCharFilter(new ProlongedSoundMarkCharFilter(reader, replacement))
+ * </pre>
+ *
+ * <p>Additional per-character rules can be given as {@link CharRule}s. They are applied to each character
+ * after the prolonged sound mark normalization and before iteration marks are expanded, so iteration marks
+ * repeat the characters produced by the rules.</p>
+ */
+public class JapaneseNormalizationCharFilter extends BufferedCharFilter {
+
+    private static final char U3005 = '々';
+
+    /** The character to use as replacement for normalized dash characters */
+    private final char replacement;
+
+    /** Additional per-character rules */
+    private final CharRule[] rules;
+
+    /**
+     * Constructs a JapaneseNormalizationCharFilter with the default prolonged sound mark (U+30FC).
+     *
+     * @param in the Reader providing the input character stream
+     */
+    public JapaneseNormalizationCharFilter(final Reader in) {
+        this(in, 0);
+    }
+
+    /**
+     * Constructs a JapaneseNormalizationCharFilter with the default prolonged sound mark (U+30FC) that
+     * processes the input in windows of the given size.
+     *
+     * @param in the Reader providing the input character stream
+     * @param windowSize the number of characters to process per window, or 0 to buffer the whole input
+     */
+    public JapaneseNormalizationCharFilter(final Reader in, final int windowSize) {
+        this(in, 'ー', windowSize);
+    }
+
+    /**
+     * Constructs a JapaneseNormalizationCharFilter with a custom prolonged sound mark and additional rules.
+     *
+     * @param in the Reader providing the input character stream
+     * @param replacement the character to use when replacing dash characters that follow Japanese characters
+     * @param windowSize the number of characters to process per window, or 0 to buffer the whole input
+     * @param rules additional per-character rules, applied in the given order
+     */
+    public JapaneseNormalizationCharFilter(final Reader in, final char replacement, final int windowSize, final CharRule... rules) {
+        super(in, windowSize);
+        this.replacement = replacement;
+        this.rules = rules;
+    }
+
+    @Override
+    protected int getLookBehind() {
+        // 々々 repeats the two preceding normalized characters, each of which depends on its preceding character
+        return 3;
+    }
+
+    @Override
+    protected int getLookAhead() {
+        // 々 checks whether the next normalized character is also 々
+        return 1;
+    }
+
+    @Override
+    protected CharSequence processInput(final CharSequence input) {
+        return processWhole(input);
+    }
+
+    @Override
+    protected int processInput(final char[] input, final int start, final int end, final int length) {
+        int pos = start;
+        while (pos < end) {
+            final char c = normalize(input, pos);
+            if (c == U3005 && pos + 1 < length && pos - 1 >= 0 && normalize(input, pos + 1) == U3005) {
+                // 々々 repeats the two preceding characters, or the preceding one twice
+                final char prev1 = normalize(input, pos - 1);
+                if (pos - 2 >= 0) {
+                    final char prev2 = normalize(input, pos - 2);
+                    append(JapaneseCharClass.isKanji(prev2) ? prev2 : prev1);
+                } else {
+                    append(prev1);
+                }
+                append(prev1);
+                pos += 2;
+            } else {
+                if (pos - 1 >= 0 && IterationMarkCharFilter.isIterationMark(c)) {
+                    append(IterationMarkCharFilter.iterate(c, normalize(input, pos - 1)));
+                } else {
+                    append(c);
+                }
+                pos++;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Applies the per-character normalizations to the character at the given position.
+     *
+     * @param input the buffered input
+     * @param pos the position of the character
+     * @return the normalized character
+     */
+    private char normalize(final char[] input, final int pos) {
+        final char prev = pos > 0 ? input[pos - 1] : 0;
+        char c = ProlongedSoundMarkCharFilter.normalize(input[pos], prev, replacement);
+        for (final CharRule rule : rules) {
+            c = rule.apply(c, prev);
+        }
+        return c;
+    }
+
+    /**
+     * A per-character normalization rule applied by {@link JapaneseNormalizationCharFilter}.
+     */
+    @FunctionalInterface
+    public interface CharRule {
+        /**
+         * Normalizes a character.
+         *
+         * @param c the character, as produced by the preceding rules
+         * @param prev the preceding input character, or 0 at the beginning of the input
+         * @return the normalized character
+         */
+        char apply(char c, char prev);
+    }
+}
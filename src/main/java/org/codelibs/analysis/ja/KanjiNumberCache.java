@@ -0,0 +1,288 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * A bounded cache from the numeral sequences composed by {@link KanjiNumberFilter} to their normalized
+ * form, so that numbers that occur again and again, such as 百, 千 or 一万 in invoices, are parsed once.
+ *
+ * <p>The cache is thread-safe and meant to be shared by all filter instances, e.g. by creating one per
+ * analyzer or one per process. It is split into segments locked independently, and each segment evicts
+ * entries with the CLOCK algorithm: an entry that was read since the hand last passed it gets a second
+ * chance, so frequent numbers stay while numbers seen once are evicted first. Lookups do not allocate.</p>
+ *
+ * <p>Numeral sequences longer than {@value #MAX_KEY_LENGTH} characters are not cached.</p>
+ */
+public final class KanjiNumberCache {
+
+    /** The longest numeral sequence that is cached */
+    public static final int MAX_KEY_LENGTH = 32;
+
+    private static final int SEGMENT_SHIFT = 4;
+
+    private final Segment[] segments;
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache holding up to the given number of entries.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public KanjiNumberCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        final int segmentCount = Math.min(1 << SEGMENT_SHIFT, Integer.highestOneBit(maxSize));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // distribute the remainder so that the capacities add up to maxSize
+            segments[i] = new Segment(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Looks up a numeral sequence and copies its normalized form to the term on a hit.
+     *
+     * @param number the numeral sequence
+     * @param term the term to write the normalized number to
+     * @return true if the number was cached
+     */
+    boolean get(final CharSequence number, final CharTermAttribute term) {
+        if (number.length() > MAX_KEY_LENGTH) {
+            return false;
+        }
+        final int hash = hash(number);
+        final char[] value = segmentFor(hash).get(number, hash);
+        if (value == null) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        term.copyBuffer(value, 0, value.length);
+        return true;
+    }
+
+    /**
+     * Caches the normalized form of a numeral sequence.
+     *
+     * @param number the numeral sequence
+     * @param term the term holding the normalized number
+     */
+    void put(final CharSequence number, final CharTermAttribute term) {
+        if (number.length() > MAX_KEY_LENGTH) {
+            return;
+        }
+        final int hash = hash(number);
+        segmentFor(hash).put(number, hash, Arrays.copyOf(term.buffer(), term.length()));
+    }
+
+    private Segment segmentFor(final int hash) {
+        return segments[(hash >>> (Integer.SIZE - SEGMENT_SHIFT)) & (segments.length - 1)];
+    }
+
+    private static int hash(final CharSequence number) {
+        int h = 0;
+        for (int i = 0; i < number.length(); i++) {
+            h = 31 * h + number.charAt(i);
+        }
+        // spread the low bits, used for the buckets, to the high bits, used for the segments
+        return h * 0x9E3779B9;
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups that found the number in the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that did not find the number in the cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Removes all entries. The hit and miss counts are kept.
+     */
+    public void clear() {
+        for (final Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * A hash table whose entries are also kept in a CLOCK ring.
+     */
+    private static final class Segment {
+
+        /** The entries in the order of the CLOCK ring */
+        private final Entry[] ring;
+
+        /** Hash buckets of entries */
+        private final Entry[] buckets;
+
+        private int size;
+
+        /** The position of the CLOCK hand in the ring */
+        private int hand;
+
+        Segment(final int capacity) {
+            ring = new Entry[capacity];
+            buckets = new Entry[Integer.highestOneBit(capacity) << 1];
+        }
+
+        synchronized char[] get(final CharSequence key, final int hash) {
+            final Entry entry = find(key, hash);
+            if (entry == null) {
+                return null;
+            }
+            entry.referenced = true;
+            return entry.value;
+        }
+
+        synchronized void put(final CharSequence key, final int hash, final char[] value) {
+            if (find(key, hash) != null) {
+                return;
+            }
+            final int slot;
+            if (size < ring.length) {
+                slot = size++;
+            } else {
+                while (ring[hand].referenced) {
+                    ring[hand].referenced = false;
+                    hand = (hand + 1) % ring.length;
+                }
+                slot = hand;
+                unlink(ring[slot]);
+                hand = (hand + 1) % ring.length;
+            }
+            final int bucket = hash & (buckets.length - 1);
+            final Entry entry = new Entry(hash, key.toString().toCharArray(), value, buckets[bucket]);
+            buckets[bucket] = entry;
+            ring[slot] = entry;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(ring, null);
+            Arrays.fill(buckets, null);
+            size = 0;
+            hand = 0;
+        }
+
+        private Entry find(final CharSequence key, final int hash) {
+            for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next) {
+                if (entry.hash == hash && entry.matches(key)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private void unlink(final Entry entry) {
+            final int bucket = entry.hash & (buckets.length - 1);
+            if (buckets[bucket] == entry) {
+                buckets[bucket] = entry.next;
+                return;
+            }
+            for (Entry prev = buckets[bucket]; prev != null; prev = prev.next) {
+                if (prev.next == entry) {
+                    prev.next = entry.next;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A cached number.
+     */
+    private static final class Entry {
+
+        final int hash;
+
+        final char[] key;
+
+        /** The normalized number, never modified once cached */
+        final char[] value;
+
+        Entry next;
+
+        /** Whether the entry was read since the CLOCK hand last passed it */
+        boolean referenced;
+
+        Entry(final int hash, final char[] key, final char[] value, final Entry next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        boolean matches(final CharSequence other) {
+            if (key.length != other.length()) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != other.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
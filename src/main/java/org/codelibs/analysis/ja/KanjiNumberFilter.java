@@ -18,9 +18,6 @@ package org.codelibs.analysis.ja;
 // https://issues.apache.org/jira/browse/LUCENE-3922
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
@@ -35,6 +32,9 @@ import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
  */
 public class KanjiNumberFilter extends TokenFilter {
 
+    /** The normalizer shared by all filters, which holds no state */
+    private static final KanjiNumberNormalizer NORMALIZER = new KanjiNumberNormalizer();
+
     private final CharTermAttribute termAttr = addAttribute(CharTermAttribute.class);
 
     private final OffsetAttribute offsetAttr = addAttribute(OffsetAttribute.class);
@@ -45,47 +45,37 @@ public class KanjiNumberFilter extends TokenFilter {
 
     private final PositionLengthAttribute posLengthAttr = addAttribute(PositionLengthAttribute.class);
 
-    private static Map<Character, Integer> numerals;
+    private State state;
 
-    private static Map<Character, Integer> exponents;
+    /** Cache of normalized numbers, or null */
+    private final KanjiNumberCache cache;
 
-    private State state;
+    /** Accumulates the terms of the number being composed */
+    private final StringBuilder numeral = new StringBuilder();
 
-    private StringBuilder numeral;
+    /** Parse position over {@link #numeral} */
+    private final KanjiNumberNormalizer.NumberBuffer numberBuffer = new KanjiNumberNormalizer.NumberBuffer("");
 
     private int fallThroughTokens;
 
-    static {
-        numerals = new HashMap<>(10);
-        numerals.put('〇', 0); // 〇 U+3007 0
-        numerals.put('一', 1); // 一 U+4E00 1
-        numerals.put('二', 2); // 二 U+4E8C 2
-        numerals.put('三', 3); // 三 U+4E09 3
-        numerals.put('四', 4); // 四 U+56DB 4
-        numerals.put('五', 5); // 五 U+4E94 5
-        numerals.put('六', 6); // 六 U+516D 6
-        numerals.put('七', 7); // 七 U+4E03 7
-        numerals.put('八', 8); // 八 U+516B 8
-        numerals.put('九', 9); // 九 U+4E5D 9
-
-        exponents = new HashMap<>(8);
-        exponents.put('十', 1); // 十 U+5341 10
-        exponents.put('百', 2); // 百 U+767E 100
-        exponents.put('千', 3); // 千 U+5343 1,000
-        exponents.put('万', 4); // 万 U+4E07 10,000
-        exponents.put('億', 8); // 億 U+5104 100,000,000
-        exponents.put('兆', 12); // 兆 U+5146 1,000,000,000,000
-        exponents.put('京', 16); // 京 U+4EAC 10,000,000,000,000,000
-        exponents.put('垓', 20); // 垓 U+5793 100,000,000,000,000,000,000
-    }
-
     /**
      * Creates a new KanjiNumberFilter.
      *
      * @param input the input token stream
      */
     public KanjiNumberFilter(final TokenStream input) {
+        this(input, null);
+    }
+
+    /**
+     * Creates a new KanjiNumberFilter that looks up normalized numbers in a cache before parsing them.
+     *
+     * @param input the input token stream
+     * @param cache the cache shared with other filters, or null to parse every number
+     */
+    public KanjiNumberFilter(final TokenStream input, final KanjiNumberCache cache) {
         super(input);
+        this.cache = cache;
     }
 
     @Override
@@ -116,22 +106,21 @@ public class KanjiNumberFilter extends TokenFilter {
             return true;
         }
 
+        if (!isNumeral(termAttr.buffer(), termAttr.length())) {
+            // Most tokens are not numbers, so check the term before capturing any state
+            return true;
+        }
+
         boolean moreTokens = true;
-        boolean composedNumberToken = false;
-        int startOffset = 0;
+        boolean numeralTerm = true;
+        final int startOffset = offsetAttr.startOffset();
         int endOffset = 0;
         final State preCompositionState = captureState();
-        String term = termAttr.toString();
-        boolean numeralTerm = isNumeral(term);
+        numeral.setLength(0);
 
         while (moreTokens && numeralTerm) {
-
-            if (!composedNumberToken) {
-                startOffset = offsetAttr.startOffset();
-                composedNumberToken = true;
-            }
-
             endOffset = offsetAttr.endOffset();
+            numeral.append(termAttr.buffer(), 0, termAttr.length());
             moreTokens = input.incrementToken();
 
             if (posIncrAttr.getPositionIncrement() == 0) {
@@ -143,39 +132,28 @@ public class KanjiNumberFilter extends TokenFilter {
                 return moreTokens;
             }
 
-            numeral.append(term);
-
             if (moreTokens) {
-                term = termAttr.toString();
-                numeralTerm = isNumeral(term) || isNumeralPunctuation(term);
+                numeralTerm = isNumeral(termAttr.buffer(), termAttr.length()) || isNumeralPunctuation(termAttr.buffer(), termAttr.length());
             }
         }
 
-        if (composedNumberToken) {
-            if (moreTokens) {
-                // We have read past all numerals and there are still tokens left, so
-                // capture the state of this token and emit it on our next incrementToken()
-                state = captureState();
-            }
-
-            final String normalizedNumber = normalizeNumber(numeral.toString());
-
-            restoreState(preCompositionState);
-            termAttr.setEmpty();
-            termAttr.append(normalizedNumber);
-            offsetAttr.setOffset(startOffset, endOffset);
-
-            numeral = new StringBuilder();
-            return true;
+        if (moreTokens) {
+            // We have read past all numerals and there are still tokens left, so
+            // capture the state of this token and emit it on our next incrementToken()
+            state = captureState();
         }
-        return moreTokens;
+
+        restoreState(preCompositionState);
+        normalizeNumber(numeral, termAttr);
+        offsetAttr.setOffset(startOffset, endOffset);
+        return true;
     }
 
     @Override
     public void reset() throws IOException {
         super.reset();
         fallThroughTokens = 0;
-        numeral = new StringBuilder();
+        numeral.setLength(0);
         state = null;
     }
 
@@ -184,239 +162,95 @@ public class KanjiNumberFilter extends TokenFilter {
      *
      * @param number number to normalize
      * @return normalized number, or number to normalize on error (no op)
+     * @see KanjiNumberNormalizer#normalize(CharSequence)
      */
     public String normalizeNumber(final String number) {
-        try {
-            final BigDecimal normalizedNumber = parseNumber(new NumberBuffer(number));
-            if (normalizedNumber == null) {
-                return number;
-            }
-            return normalizedNumber.toBigIntegerExact().toString();
-
-        } catch (NumberFormatException | ArithmeticException e) {
-            // Return the source number in case of error, i.e. malformed input
-            return number;
-        }
-    }
-
-    /**
-     * Parses a Japanese number
-     *
-     * @param buffer buffer to parse
-     * @return parsed number, or null on error or end of input
-     */
-    private BigDecimal parseNumber(final NumberBuffer buffer) {
-        BigDecimal sum = BigDecimal.ZERO;
-        BigDecimal result = parseLargePair(buffer);
-
-        if (result == null) {
-            return null;
-        }
-
-        while (result != null) {
-            sum = sum.add(result);
-            result = parseLargePair(buffer);
-        }
-
-        return sum;
-    }
-
-    /**
-     * Parses a pair of large numbers, i.e. large kanji factor is 10,000（万）or larger
-     *
-     * @param buffer buffer to parse
-     * @return parsed pair, or null on error or end of input
-     */
-    private BigDecimal parseLargePair(final NumberBuffer buffer) {
-        final BigDecimal first = parseMediumNumber(buffer);
-        final BigDecimal second = parseLargeKanjiNumeral(buffer);
-
-        if (first == null && second == null) {
-            return null;
-        }
-
-        if (second == null) {
-            // If there's no second factor, we return the first one
-            // This can happen if we our number is smaller than 10,000 (万)
-            return first;
-        }
-
-        if (first == null) {
-            // If there's no first factor, just return the second one,
-            // which is the same as multiplying by 1, i.e. with 万
-            return second;
-        }
-
-        return first.multiply(second);
+        return NORMALIZER.normalize(number);
     }
 
     /**
-     * Parses a "medium sized" number, typically less than 10,000（万）, but might be larger
-     * due to a larger factor from {link parseBasicNumber}.
+     * Normalizes a Japanese number into a term without creating Strings, unless it needs BigDecimal arithmetic or is
+     * missing from the cache
      *
-     * @param buffer buffer to parse
-     * @return parsed number, or null on error or end of input
-     */
-    private BigDecimal parseMediumNumber(final NumberBuffer buffer) {
-        BigDecimal sum = BigDecimal.ZERO;
-        BigDecimal result = parseMediumPair(buffer);
-
-        if (result == null) {
-            return null;
-        }
-
-        while (result != null) {
-            sum = sum.add(result);
-            result = parseMediumPair(buffer);
-        }
-
-        return sum;
-    }
-
-    /**
-     * Parses a pair of "medium sized" numbers, i.e. large kanji factor is at most 1,000（千）
-     *
-     * @param buffer buffer to parse
-     * @return parsed pair, or null on error or end of input
+     * @param number number to normalize
+     * @param term term to write the normalized number, or the number to normalize on error, to
      */
-    private BigDecimal parseMediumPair(final NumberBuffer buffer) {
-
-        final BigDecimal first = parseBasicNumber(buffer);
-        final BigDecimal second = parseMediumKanjiNumeral(buffer);
-
-        if (first == null && second == null) {
-            return null;
+    private void normalizeNumber(final CharSequence number, final CharTermAttribute term) {
+        if (cache != null && cache.get(number, term)) {
+            return;
         }
 
-        if (second == null) {
-            // If there's no second factor, we return the first one
-            // This can happen if we just have a plain number such as 五
-            return first;
+        numberBuffer.reset(number);
+        int length = NORMALIZER.normalize(numberBuffer, term.buffer(), 0);
+        if (length > term.buffer().length) {
+            term.resizeBuffer(length);
+            numberBuffer.reset(number);
+            length = NORMALIZER.normalize(numberBuffer, term.buffer(), 0);
         }
+        term.setLength(length);
 
-        if (first == null) {
-            // If there's no first factor, just return the second one,
-            // which is the same as multiplying by 1, i.e. with 千
-            return second;
+        if (cache != null) {
+            cache.put(number, term);
         }
-
-        // Return factors multiplied
-        return first.multiply(second);
     }
 
     /**
-     * Parse a basic number, which is a sequence of Arabic numbers or a sequence or 0-9 kanji numerals (〇 to 九).
+     * Numeral predicate
      *
-     * @param buffer buffer to parse
-     * @return parsed number, or null on error or end of input
+     * @param input string to test
+     * @return true if and only if input is a numeral
      */
-    private BigDecimal parseBasicNumber(final NumberBuffer buffer) {
-        final StringBuilder builder = new StringBuilder();
-        int i = buffer.position();
-
-        while (i < buffer.length()) {
-            final char c = buffer.charAt(i);
-
-            if (isArabicNumeral(c)) {
-                // Arabic numerals; 0 to 9 or ０ to ９ (full-width)
-                builder.append(arabicNumeralValue(c));
-            } else if (isKanjiNumeral(c)) {
-                // Kanji numerals; 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九
-                builder.append(kanjiNumeralValue(c));
-            } else if (isDecimalPoint(c)) {
-                builder.append(".");
-            } else if (isThousandSeparator(c)) {
-                // Just skip and move to the next character
-            } else {
-                // We don't have an Arabic nor kanji numeral, nor separation or punctuation, so we'll stop.
-                break;
+    public boolean isNumeral(final String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (!isNumeral(input.charAt(i))) {
+                return false;
             }
-
-            i++;
-            buffer.advance();
         }
-
-        if (builder.length() == 0) {
-            // We didn't build anything, so we don't have a number
-            return null;
-        }
-
-        return new BigDecimal(builder.toString());
+        return true;
     }
 
     /**
-     * Parse large kanji numerals (ten thousands or larger)
+     * Numeral predicate
      *
-     * @param buffer buffer to parse
-     * @return parsed number, or null on error or end of input
+     * @param c character to test
+     * @return true if and only if c is a numeral
      */
-    private BigDecimal parseLargeKanjiNumeral(final NumberBuffer buffer) {
-        final int i = buffer.position();
-
-        if (i >= buffer.length()) {
-            return null;
-        }
-
-        final char c = buffer.charAt(i);
-        final int power = exponents.getOrDefault(c, 0);
-
-        if (power > 3) {
-            buffer.advance();
-            return BigDecimal.TEN.pow(power);
-        }
-
-        return null;
+    public boolean isNumeral(final char c) {
+        return KanjiNumberNormalizer.isNumeral(c);
     }
 
     /**
-     * Parse medium kanji numerals (tens, hundreds or thousands)
+     * Numeral predicate over a term buffer
      *
-     * @param buffer buffer to parse
-     * @return parsed number or null on error
+     * @param buffer buffer holding the term
+     * @param length length of the term
+     * @return true if and only if the term is a numeral
      */
-    private BigDecimal parseMediumKanjiNumeral(final NumberBuffer buffer) {
-        final int i = buffer.position();
-
-        if (i >= buffer.length()) {
-            return null;
-        }
-
-        final char c = buffer.charAt(i);
-        final int power = exponents.getOrDefault(c, 0);
-
-        if (1 <= power && power <= 3) {
-            buffer.advance();
-            return BigDecimal.TEN.pow(power);
+    private boolean isNumeral(final char[] buffer, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isNumeral(buffer[i])) {
+                return false;
+            }
         }
-
-        return null;
+        return true;
     }
 
     /**
-     * Numeral predicate
+     * Numeral punctuation predicate over a term buffer
      *
-     * @param input string to test
-     * @return true if and only if input is a numeral
+     * @param buffer buffer holding the term
+     * @param length length of the term
+     * @return true if and only if the term is a numeral punctuation string
      */
-    public boolean isNumeral(final String input) {
-        for (int i = 0; i < input.length(); i++) {
-            if (!isNumeral(input.charAt(i))) {
+    private boolean isNumeralPunctuation(final char[] buffer, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isNumeralPunctuation(buffer[i])) {
                 return false;
             }
         }
         return true;
     }
 
-    /**
-     * Numeral predicate
-     *
-     * @param c character to test
-     * @return true if and only if c is a numeral
-     */
-    public boolean isNumeral(final char c) {
-        return isArabicNumeral(c) || isKanjiNumeral(c) || exponents.getOrDefault(c, 0) > 0;
-    }
-
     /**
      * Numeral punctuation predicate
      *
@@ -439,7 +273,7 @@ public class KanjiNumberFilter extends TokenFilter {
      * @return true if and only if c is a numeral punctuation character
      */
     public boolean isNumeralPunctuation(final char c) {
-        return isDecimalPoint(c) || isThousandSeparator(c);
+        return KanjiNumberNormalizer.isNumeralPunctuation(c);
     }
 
     /**
@@ -449,145 +283,6 @@ public class KanjiNumberFilter extends TokenFilter {
      * @return true if and only if c is an Arabic numeral
      */
     public boolean isArabicNumeral(final char c) {
-        return isHalfWidthArabicNumeral(c) || isFullWidthArabicNumeral(c);
-    }
-
-    /**
-     * Arabic half-width numeral predicate
-     *
-     * @param c character to test
-     * @return true if and only if c is a half-width Arabic numeral
-     */
-    private boolean isHalfWidthArabicNumeral(final char c) {
-        // 0 U+0030 - 9 U+0039
-        return '0' <= c && c <= '9';
-    }
-
-    /**
-     * Arabic full-width numeral predicate
-     *
-     * @param c character to test
-     * @return true if and only if c is a full-width Arabic numeral
-     */
-    private boolean isFullWidthArabicNumeral(final char c) {
-        // ０ U+FF10 - ９ U+FF19
-        return '０' <= c && c <= '９';
-    }
-
-    /**
-     * Returns the numeric value for the specified character Arabic numeral.
-     * Behavior is undefined if a non-Arabic numeral is provided
-     *
-     * @param c arabic numeral character
-     * @return numeral value
-     */
-    private int arabicNumeralValue(final char c) {
-        int offset;
-        if (isHalfWidthArabicNumeral(c)) {
-            offset = '0';
-        } else {
-            offset = '０';
-        }
-        return c - offset;
-    }
-
-    /**
-     * Kanji numeral predicate that tests if the provided character is one of 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九.
-     * Larger number kanji gives a false value.
-     *
-     * @param c character to test
-     * @return true if and only is character is one of 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九 (0 to 9)
-     */
-    private boolean isKanjiNumeral(final char c) {
-        return numerals.containsKey(c);
-    }
-
-    /**
-     * Returns the value for the provided kanji numeral. Only numeric values for the characters where
-     * {link isKanjiNumeral} return true are supported - behavior is undefined for other characters.
-     *
-     * @param c kanji numeral character
-     * @return numeral value
-     * @see #isKanjiNumeral(char)
-     */
-    private int kanjiNumeralValue(final char c) {
-        return numerals.get(c);
-    }
-
-    /**
-     * Decimal point predicate
-     *
-     * @param c character to test
-     * @return true if and only if c is a decimal point
-     */
-    private boolean isDecimalPoint(final char c) {
-        return c == '.' // U+002E FULL STOP
-                || c == '．'; // U+FF0E FULLWIDTH FULL STOP
-    }
-
-    /**
-     * Thousand separator predicate
-     *
-     * @param c character to test
-     * @return true if and only if c is a thousand separator predicate
-     */
-    private boolean isThousandSeparator(final char c) {
-        return c == ',' // U+002C COMMA
-                || c == '，'; // U+FF0C FULLWIDTH COMMA
-    }
-
-    /**
-     * Buffer that holds a Japanese number string and a position index used as a parsed-to marker
-     */
-    private static class NumberBuffer {
-
-        private int position;
-
-        private String string;
-
-        /**
-         * Creates a new NumberBuffer.
-         *
-         * @param string the Japanese number string to parse
-         */
-        public NumberBuffer(final String string) {
-            this.string = string;
-            position = 0;
-        }
-
-        /**
-         * Returns the character at the specified index.
-         *
-         * @param index the index of the character to return
-         * @return the character at the specified index
-         */
-        public char charAt(final int index) {
-            return string.charAt(index);
-        }
-
-        /**
-         * Returns the length of the buffer.
-         *
-         * @return the length of the buffer
-         */
-        public int length() {
-            return string.length();
-        }
-
-        /**
-         * Advances the position index by one.
-         */
-        public void advance() {
-            position++;
-        }
-
-        /**
-         * Returns the current position index.
-         *
-         * @return the current position index
-         */
-        public int position() {
-            return position;
-        }
+        return KanjiNumberNormalizer.isArabicNumeral(c);
     }
 }
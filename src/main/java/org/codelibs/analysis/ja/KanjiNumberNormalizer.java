@@ -0,0 +1,838 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+// https://issues.apache.org/jira/browse/LUCENE-3922
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Normalizes Japanese numbers, such as 二千二十五 or 3.2千, to Arabic numerals outside of a token stream.
+ *
+ * <p>This is the engine of {@link KanjiNumberFilter}, for query parsers and batch jobs that normalize values
+ * one by one. It is thread-safe, and numbers that fit in a long are parsed and written without allocating
+ * beyond a small parse cursor; decimals and larger numbers fall back to BigDecimal arithmetic.</p>
+ */
+public final class KanjiNumberNormalizer {
+
+    /** Result of the primitive parsers when there is no number */
+    private static final long NO_NUMBER = -1;
+
+    /** Result of the primitive parsers when the number needs BigDecimal, i.e. it has a decimal point or overflows a long */
+    private static final long NOT_LONG = -2;
+
+    /** Powers of ten that fit in a long, indexed by exponent */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    /** Classification flag of the Arabic numerals 0 to 9, half-width or full-width */
+    private static final byte ARABIC_NUMERAL = 1;
+
+    /** Classification flag of the kanji numerals 〇 to 九 */
+    private static final byte KANJI_NUMERAL = 2;
+
+    /** Classification flag of the kanji exponents 十 to 垓 */
+    private static final byte EXPONENT = 4;
+
+    /** Classification flag of the decimal points */
+    private static final byte DECIMAL_POINT = 8;
+
+    /** Classification flag of the thousand separators */
+    private static final byte THOUSAND_SEPARATOR = 16;
+
+    /** Classification flags indexed by character */
+    private static final byte[] CHAR_CLASSES = new byte[Character.MAX_VALUE + 1];
+
+    /** Digit value of the numerals, or power of ten of the exponents, indexed by character */
+    private static final byte[] CHAR_VALUES = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+
+        for (int i = 0; i <= 9; i++) {
+            define((char) ('0' + i), ARABIC_NUMERAL, i); // 0 U+0030 - 9 U+0039
+            define((char) ('０' + i), ARABIC_NUMERAL, i); // ０ U+FF10 - ９ U+FF19
+        }
+
+        define('〇', KANJI_NUMERAL, 0); // 〇 U+3007 0
+        define('一', KANJI_NUMERAL, 1); // 一 U+4E00 1
+        define('二', KANJI_NUMERAL, 2); // 二 U+4E8C 2
+        define('三', KANJI_NUMERAL, 3); // 三 U+4E09 3
+        define('四', KANJI_NUMERAL, 4); // 四 U+56DB 4
+        define('五', KANJI_NUMERAL, 5); // 五 U+4E94 5
+        define('六', KANJI_NUMERAL, 6); // 六 U+516D 6
+        define('七', KANJI_NUMERAL, 7); // 七 U+4E03 7
+        define('八', KANJI_NUMERAL, 8); // 八 U+516B 8
+        define('九', KANJI_NUMERAL, 9); // 九 U+4E5D 9
+
+        define('十', EXPONENT, 1); // 十 U+5341 10
+        define('百', EXPONENT, 2); // 百 U+767E 100
+        define('千', EXPONENT, 3); // 千 U+5343 1,000
+        define('万', EXPONENT, 4); // 万 U+4E07 10,000
+        define('億', EXPONENT, 8); // 億 U+5104 100,000,000
+        define('兆', EXPONENT, 12); // 兆 U+5146 1,000,000,000,000
+        define('京', EXPONENT, 16); // 京 U+4EAC 10,000,000,000,000,000
+        define('垓', EXPONENT, 20); // 垓 U+5793 100,000,000,000,000,000,000
+
+        define('.', DECIMAL_POINT, 0); // U+002E FULL STOP
+        define('．', DECIMAL_POINT, 0); // U+FF0E FULLWIDTH FULL STOP
+        define(',', THOUSAND_SEPARATOR, 0); // U+002C COMMA
+        define('，', THOUSAND_SEPARATOR, 0); // U+FF0C FULLWIDTH COMMA
+    }
+
+    private static void define(final char c, final byte charClass, final int value) {
+        CHAR_CLASSES[c] = charClass;
+        CHAR_VALUES[c] = (byte) value;
+    }
+
+    /**
+     * Creates a new KanjiNumberNormalizer. Instances hold no state and can be shared between threads.
+     */
+    public KanjiNumberNormalizer() {
+        // nothing to initialize
+    }
+
+    /**
+     * Normalizes a Japanese number
+     *
+     * @param number number to normalize
+     * @return normalized number, or number to normalize on error (no op)
+     */
+    public String normalize(final CharSequence number) {
+        final long value = parseLong(new NumberBuffer(number));
+        if (value == NO_NUMBER) {
+            return number.toString();
+        }
+        if (value != NOT_LONG) {
+            return Long.toString(value);
+        }
+        return normalizeDecimal(number.toString());
+    }
+
+    /**
+     * Normalizes a Japanese number into a char array. The normalized number is written only if it fits in the
+     * array, so a caller with a smaller array can grow it to the returned length and call again.
+     *
+     * @param number number to normalize
+     * @param output array to write the normalized number, or the number to normalize on error, to
+     * @param outputOffset position in the array to write to
+     * @return the length of the normalized number
+     */
+    public int normalize(final CharSequence number, final char[] output, final int outputOffset) {
+        return normalize(new NumberBuffer(number), output, outputOffset);
+    }
+
+    /**
+     * Normalizes a Japanese number held in a range of a char array into a char array. The normalized number is
+     * written only if it fits in the output array, so a caller with a smaller array can grow it to the returned
+     * length and call again. The input and output may be the same array.
+     *
+     * @param input array holding the number to normalize
+     * @param offset start of the number in the input array
+     * @param length length of the number
+     * @param output array to write the normalized number, or the number to normalize on error, to
+     * @param outputOffset position in the output array to write to
+     * @return the length of the normalized number
+     */
+    public int normalize(final char[] input, final int offset, final int length, final char[] output, final int outputOffset) {
+        return normalize(new NumberBuffer(input, offset, length), output, outputOffset);
+    }
+
+    /**
+     * Normalizes Japanese numbers back to back into one char array, stopping at the first number that does not
+     * fit, so that large batches can be processed in chunks with a fixed buffer.
+     *
+     * @param numbers numbers to normalize
+     * @param from index of the first number to normalize
+     * @param output array to write the normalized numbers to, starting at position 0
+     * @param ends receives, for each normalized number at index {@code i}, its end position in the output at index
+     *        {@code i - from}
+     * @return index of the first number that was not normalized, i.e. {@code numbers.length} when all of them fit
+     */
+    public int normalize(final CharSequence[] numbers, final int from, final char[] output, final int[] ends) {
+        final NumberBuffer buffer = new NumberBuffer("");
+        int end = 0;
+        for (int i = from; i < numbers.length; i++) {
+            if (i - from == ends.length) {
+                return i;
+            }
+            buffer.reset(numbers[i]);
+            final int length = normalize(buffer, output, end);
+            if (end + length > output.length) {
+                return i;
+            }
+            end += length;
+            ends[i - from] = end;
+        }
+        return numbers.length;
+    }
+
+    /**
+     * Normalizes the number held by a buffer into a char array, if it fits
+     *
+     * @param buffer buffer holding the number, positioned at its beginning
+     * @param output array to write to
+     * @param outputOffset position in the array to write to
+     * @return the length of the normalized number
+     */
+    int normalize(final NumberBuffer buffer, final char[] output, final int outputOffset) {
+        final long value = parseLong(buffer);
+        if (value == NO_NUMBER) {
+            final int length = buffer.length();
+            if (outputOffset + length <= output.length) {
+                buffer.getChars(output, outputOffset);
+            }
+            return length;
+        }
+        if (value != NOT_LONG) {
+            int length = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                length++;
+            }
+            if (outputOffset + length <= output.length) {
+                long v = value;
+                for (int i = outputOffset + length - 1; i >= outputOffset; i--) {
+                    output[i] = (char) ('0' + v % 10);
+                    v /= 10;
+                }
+            }
+            return length;
+        }
+        final String normalized = normalizeDecimal(buffer.toString());
+        if (outputOffset + normalized.length() <= output.length) {
+            normalized.getChars(0, normalized.length(), output, outputOffset);
+        }
+        return normalized.length();
+    }
+
+    /**
+     * Normalizes a Japanese number with BigDecimal arithmetic
+     *
+     * @param number number to normalize
+     * @return normalized number, or number to normalize on error (no op)
+     */
+    private String normalizeDecimal(final String number) {
+        try {
+            final BigDecimal normalizedNumber = parseNumber(new NumberBuffer(number));
+            if (normalizedNumber == null) {
+                return number;
+            }
+            return normalizedNumber.toBigIntegerExact().toString();
+
+        } catch (NumberFormatException | ArithmeticException e) {
+            // Return the source number in case of error, i.e. malformed input
+            return number;
+        }
+    }
+
+    /**
+     * Parses a Japanese number with primitive arithmetic, following the same grammar as {@link #parseNumber(NumberBuffer)}
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, {@link #NO_NUMBER} at the end of input, or {@link #NOT_LONG} if the number has a decimal point or
+     *         overflows a long
+     */
+    private long parseLong(final NumberBuffer buffer) {
+        long sum = parseLargePairLong(buffer);
+
+        if (sum < 0) {
+            return sum;
+        }
+
+        for (long result = parseLargePairLong(buffer); result != NO_NUMBER; result = parseLargePairLong(buffer)) {
+            if (result == NOT_LONG) {
+                return NOT_LONG;
+            }
+            sum = add(sum, result);
+            if (sum == NOT_LONG) {
+                return NOT_LONG;
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Parses a pair of large numbers with primitive arithmetic
+     *
+     * @param buffer buffer to parse
+     * @return parsed pair, {@link #NO_NUMBER} at the end of input, or {@link #NOT_LONG}
+     * @see #parseLargePair(NumberBuffer)
+     */
+    private long parseLargePairLong(final NumberBuffer buffer) {
+        final long first = parseMediumNumberLong(buffer);
+        if (first == NOT_LONG) {
+            return NOT_LONG;
+        }
+        final long second = parseKanjiExponentLong(buffer, 4, Integer.MAX_VALUE);
+
+        if (second == NOT_LONG) {
+            return NOT_LONG;
+        }
+
+        if (second == NO_NUMBER) {
+            return first;
+        }
+
+        if (first == NO_NUMBER) {
+            return second;
+        }
+
+        return multiply(first, second);
+    }
+
+    /**
+     * Parses a "medium sized" number with primitive arithmetic
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, {@link #NO_NUMBER} at the end of input, or {@link #NOT_LONG}
+     * @see #parseMediumNumber(NumberBuffer)
+     */
+    private long parseMediumNumberLong(final NumberBuffer buffer) {
+        long sum = parseMediumPairLong(buffer);
+
+        if (sum < 0) {
+            return sum;
+        }
+
+        for (long result = parseMediumPairLong(buffer); result != NO_NUMBER; result = parseMediumPairLong(buffer)) {
+            if (result == NOT_LONG) {
+                return NOT_LONG;
+            }
+            sum = add(sum, result);
+            if (sum == NOT_LONG) {
+                return NOT_LONG;
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Parses a pair of "medium sized" numbers with primitive arithmetic
+     *
+     * @param buffer buffer to parse
+     * @return parsed pair, {@link #NO_NUMBER} at the end of input, or {@link #NOT_LONG}
+     * @see #parseMediumPair(NumberBuffer)
+     */
+    private long parseMediumPairLong(final NumberBuffer buffer) {
+        final long first = parseBasicNumberLong(buffer);
+        if (first == NOT_LONG) {
+            return NOT_LONG;
+        }
+        final long second = parseKanjiExponentLong(buffer, 1, 3);
+
+        if (second == NO_NUMBER) {
+            return first;
+        }
+
+        if (first == NO_NUMBER) {
+            return second;
+        }
+
+        return multiply(first, second);
+    }
+
+    /**
+     * Parses a basic number with primitive arithmetic
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, {@link #NO_NUMBER} if there are no digits, or {@link #NOT_LONG} if the number has a decimal point or
+     *         overflows a long
+     * @see #parseBasicNumber(NumberBuffer)
+     */
+    private long parseBasicNumberLong(final NumberBuffer buffer) {
+        long value = 0;
+        boolean digits = false;
+        int i = buffer.position();
+
+        while (i < buffer.length()) {
+            final char c = buffer.charAt(i);
+            final int digit;
+
+            if (isArabicNumeral(c)) {
+                digit = arabicNumeralValue(c);
+            } else if (isKanjiNumeral(c)) {
+                digit = kanjiNumeralValue(c);
+            } else if (isDecimalPoint(c)) {
+                // Fractions are left to BigDecimal
+                return NOT_LONG;
+            } else if (isThousandSeparator(c)) {
+                i++;
+                buffer.advance();
+                continue;
+            } else {
+                break;
+            }
+
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return NOT_LONG;
+            }
+            value = value * 10 + digit;
+            digits = true;
+
+            i++;
+            buffer.advance();
+        }
+
+        return digits ? value : NO_NUMBER;
+    }
+
+    /**
+     * Parses a kanji exponent within the given range of powers of ten
+     *
+     * @param buffer buffer to parse
+     * @param minPower the smallest power to accept
+     * @param maxPower the largest power to accept
+     * @return the power of ten, {@link #NO_NUMBER} if there is no such exponent, or {@link #NOT_LONG} if it overflows a long
+     */
+    private long parseKanjiExponentLong(final NumberBuffer buffer, final int minPower, final int maxPower) {
+        final int i = buffer.position();
+
+        if (i >= buffer.length()) {
+            return NO_NUMBER;
+        }
+
+        final int power = exponentValue(buffer.charAt(i));
+
+        if (minPower <= power && power <= maxPower) {
+            buffer.advance();
+            return power < POWERS_OF_TEN.length ? POWERS_OF_TEN[power] : NOT_LONG;
+        }
+
+        return NO_NUMBER;
+    }
+
+    /**
+     * Adds two non-negative numbers
+     *
+     * @param a first number
+     * @param b second number
+     * @return the sum, or {@link #NOT_LONG} on overflow
+     */
+    private static long add(final long a, final long b) {
+        return a > Long.MAX_VALUE - b ? NOT_LONG : a + b;
+    }
+
+    /**
+     * Multiplies two non-negative numbers
+     *
+     * @param a first number
+     * @param b second number
+     * @return the product, or {@link #NOT_LONG} on overflow
+     */
+    private static long multiply(final long a, final long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? NOT_LONG : a * b;
+    }
+
+    /**
+     * Parses a Japanese number
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, or null on error or end of input
+     */
+    private BigDecimal parseNumber(final NumberBuffer buffer) {
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal result = parseLargePair(buffer);
+
+        if (result == null) {
+            return null;
+        }
+
+        while (result != null) {
+            sum = sum.add(result);
+            result = parseLargePair(buffer);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Parses a pair of large numbers, i.e. large kanji factor is 10,000（万）or larger
+     *
+     * @param buffer buffer to parse
+     * @return parsed pair, or null on error or end of input
+     */
+    private BigDecimal parseLargePair(final NumberBuffer buffer) {
+        final BigDecimal first = parseMediumNumber(buffer);
+        final BigDecimal second = parseLargeKanjiNumeral(buffer);
+
+        if (first == null && second == null) {
+            return null;
+        }
+
+        if (second == null) {
+            // If there's no second factor, we return the first one
+            // This can happen if we our number is smaller than 10,000 (万)
+            return first;
+        }
+
+        if (first == null) {
+            // If there's no first factor, just return the second one,
+            // which is the same as multiplying by 1, i.e. with 万
+            return second;
+        }
+
+        return first.multiply(second);
+    }
+
+    /**
+     * Parses a "medium sized" number, typically less than 10,000（万）, but might be larger
+     * due to a larger factor from {link parseBasicNumber}.
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, or null on error or end of input
+     */
+    private BigDecimal parseMediumNumber(final NumberBuffer buffer) {
+        BigDecimal sum = BigDecimal.ZERO;
+        BigDecimal result = parseMediumPair(buffer);
+
+        if (result == null) {
+            return null;
+        }
+
+        while (result != null) {
+            sum = sum.add(result);
+            result = parseMediumPair(buffer);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Parses a pair of "medium sized" numbers, i.e. large kanji factor is at most 1,000（千）
+     *
+     * @param buffer buffer to parse
+     * @return parsed pair, or null on error or end of input
+     */
+    private BigDecimal parseMediumPair(final NumberBuffer buffer) {
+
+        final BigDecimal first = parseBasicNumber(buffer);
+        final BigDecimal second = parseMediumKanjiNumeral(buffer);
+
+        if (first == null && second == null) {
+            return null;
+        }
+
+        if (second == null) {
+            // If there's no second factor, we return the first one
+            // This can happen if we just have a plain number such as 五
+            return first;
+        }
+
+        if (first == null) {
+            // If there's no first factor, just return the second one,
+            // which is the same as multiplying by 1, i.e. with 千
+            return second;
+        }
+
+        // Return factors multiplied
+        return first.multiply(second);
+    }
+
+    /**
+     * Parse a basic number, which is a sequence of Arabic numbers or a sequence or 0-9 kanji numerals (〇 to 九).
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, or null on error or end of input
+     */
+    private BigDecimal parseBasicNumber(final NumberBuffer buffer) {
+        final StringBuilder builder = new StringBuilder();
+        int i = buffer.position();
+
+        while (i < buffer.length()) {
+            final char c = buffer.charAt(i);
+
+            if (isArabicNumeral(c)) {
+                // Arabic numerals; 0 to 9 or ０ to ９ (full-width)
+                builder.append(arabicNumeralValue(c));
+            } else if (isKanjiNumeral(c)) {
+                // Kanji numerals; 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九
+                builder.append(kanjiNumeralValue(c));
+            } else if (isDecimalPoint(c)) {
+                builder.append(".");
+            } else if (isThousandSeparator(c)) {
+                // Just skip and move to the next character
+            } else {
+                // We don't have an Arabic nor kanji numeral, nor separation or punctuation, so we'll stop.
+                break;
+            }
+
+            i++;
+            buffer.advance();
+        }
+
+        if (builder.length() == 0) {
+            // We didn't build anything, so we don't have a number
+            return null;
+        }
+
+        return new BigDecimal(builder.toString());
+    }
+
+    /**
+     * Parse large kanji numerals (ten thousands or larger)
+     *
+     * @param buffer buffer to parse
+     * @return parsed number, or null on error or end of input
+     */
+    private BigDecimal parseLargeKanjiNumeral(final NumberBuffer buffer) {
+        final int i = buffer.position();
+
+        if (i >= buffer.length()) {
+            return null;
+        }
+
+        final char c = buffer.charAt(i);
+        final int power = exponentValue(c);
+
+        if (power > 3) {
+            buffer.advance();
+            return BigDecimal.TEN.pow(power);
+        }
+
+        return null;
+    }
+
+    /**
+     * Parse medium kanji numerals (tens, hundreds or thousands)
+     *
+     * @param buffer buffer to parse
+     * @return parsed number or null on error
+     */
+    private BigDecimal parseMediumKanjiNumeral(final NumberBuffer buffer) {
+        final int i = buffer.position();
+
+        if (i >= buffer.length()) {
+            return null;
+        }
+
+        final char c = buffer.charAt(i);
+        final int power = exponentValue(c);
+
+        if (1 <= power && power <= 3) {
+            buffer.advance();
+            return BigDecimal.TEN.pow(power);
+        }
+
+        return null;
+    }
+
+    /**
+     * Numeral predicate
+     *
+     * @param c character to test
+     * @return true if and only if c is a numeral
+     */
+    static boolean isNumeral(final char c) {
+        return (CHAR_CLASSES[c] & (ARABIC_NUMERAL | KANJI_NUMERAL | EXPONENT)) != 0;
+    }
+
+    /**
+     * Numeral punctuation predicate
+     *
+     * @param c character to test
+     * @return true if and only if c is a numeral punctuation character
+     */
+    static boolean isNumeralPunctuation(final char c) {
+        return (CHAR_CLASSES[c] & (DECIMAL_POINT | THOUSAND_SEPARATOR)) != 0;
+    }
+
+    /**
+     * Arabic numeral predicate. Both half-width and full-width characters are supported
+     *
+     * @param c character to test
+     * @return true if and only if c is an Arabic numeral
+     */
+    static boolean isArabicNumeral(final char c) {
+        return (CHAR_CLASSES[c] & ARABIC_NUMERAL) != 0;
+    }
+
+    /**
+     * Returns the numeric value for the specified character Arabic numeral.
+     * Behavior is undefined if a non-Arabic numeral is provided
+     *
+     * @param c arabic numeral character
+     * @return numeral value
+     */
+    private static int arabicNumeralValue(final char c) {
+        return CHAR_VALUES[c];
+    }
+
+    /**
+     * Kanji numeral predicate that tests if the provided character is one of 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九.
+     * Larger number kanji gives a false value.
+     *
+     * @param c character to test
+     * @return true if and only is character is one of 〇, 一, 二, 三, 四, 五, 六, 七, 八, or 九 (0 to 9)
+     */
+    private static boolean isKanjiNumeral(final char c) {
+        return (CHAR_CLASSES[c] & KANJI_NUMERAL) != 0;
+    }
+
+    /**
+     * Returns the value for the provided kanji numeral. Only numeric values for the characters where
+     * {link isKanjiNumeral} return true are supported - behavior is undefined for other characters.
+     *
+     * @param c kanji numeral character
+     * @return numeral value
+     * @see #isKanjiNumeral(char)
+     */
+    private static int kanjiNumeralValue(final char c) {
+        return CHAR_VALUES[c];
+    }
+
+    /**
+     * Returns the power of ten of the provided kanji exponent, i.e. 1 for 十 and 4 for 万
+     *
+     * @param c character to look up
+     * @return the power of ten, or 0 if c is not an exponent
+     */
+    private static int exponentValue(final char c) {
+        return (CHAR_CLASSES[c] & EXPONENT) != 0 ? CHAR_VALUES[c] : 0;
+    }
+
+    /**
+     * Decimal point predicate
+     *
+     * @param c character to test
+     * @return true if and only if c is a decimal point
+     */
+    private static boolean isDecimalPoint(final char c) {
+        return (CHAR_CLASSES[c] & DECIMAL_POINT) != 0;
+    }
+
+    /**
+     * Thousand separator predicate
+     *
+     * @param c character to test
+     * @return true if and only if c is a thousand separator predicate
+     */
+    private static boolean isThousandSeparator(final char c) {
+        return (CHAR_CLASSES[c] & THOUSAND_SEPARATOR) != 0;
+    }
+
+    /**
+     * Buffer that holds a Japanese number string, or a range of a char array, and a position index used as a parsed-to marker
+     */
+    static final class NumberBuffer {
+
+        private int position;
+
+        private CharSequence string;
+
+        private char[] array;
+
+        private int offset;
+
+        private int length;
+
+        /**
+         * Creates a new NumberBuffer.
+         *
+         * @param string the Japanese number string to parse
+         */
+        NumberBuffer(final CharSequence string) {
+            reset(string);
+        }
+
+        /**
+         * Creates a new NumberBuffer over a range of a char array.
+         *
+         * @param array the array holding the Japanese number
+         * @param offset the start of the number in the array
+         * @param length the length of the number
+         */
+        NumberBuffer(final char[] array, final int offset, final int length) {
+            Objects.checkFromIndexSize(offset, length, array.length);
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Starts parsing another number string.
+         *
+         * @param string the Japanese number string to parse
+         */
+        void reset(final CharSequence string) {
+            this.string = string;
+            array = null;
+            offset = 0;
+            length = string.length();
+            position = 0;
+        }
+
+        /**
+         * Returns the character at the specified index.
+         *
+         * @param index the index of the character to return
+         * @return the character at the specified index
+         */
+        public char charAt(final int index) {
+            return array != null ? array[offset + index] : string.charAt(index);
+        }
+
+        /**
+         * Returns the length of the buffer.
+         *
+         * @return the length of the buffer
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Copies the whole number to a char array.
+         *
+         * @param output the array to copy to
+         * @param outputOffset the position in the array to copy to
+         */
+        void getChars(final char[] output, final int outputOffset) {
+            if (array != null) {
+                System.arraycopy(array, offset, output, outputOffset, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    output[outputOffset + i] = string.charAt(i);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return array != null ? new String(array, offset, length) : string.toString();
+        }
+
+        /**
+         * Advances the position index by one.
+         */
+        public void advance() {
+            position++;
+        }
+
+        /**
+         * Returns the current position index.
+         *
+         * @return the current position index
+         */
+        public int position() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.codelibs.analysis.ConcatenationFilter;
+
+/**
+ * A token filter that applies several (target, follower) pattern rules in one stage. A token is
+ * concatenated with the following token if, for any rule, the token matches the target pattern and
+ * the following token matches the follower pattern of the same rule.
+ *
+ * <p>Unlike a chain of {@link PatternConcatenationFilter}s, which scans the stream once per rule,
+ * every token is matched against all rules in a single pass over its term. As in the base class, a
+ * concatenated term is checked again as a target, so it can be extended by any rule.</p>
+ */
+public class MultiPatternConcatenationFilter extends ConcatenationFilter {
+
+    /** The compiled rules */
+    private final ConcatenationRules rules;
+
+    /** Rules whose target pattern matches the token being concatenated */
+    private final long[] targetRules;
+
+    /**
+     * Constructs a MultiPatternConcatenationFilter.
+     *
+     * @param input the input TokenStream to filter
+     * @param rules the compiled rules, which may be shared between filters
+     */
+    public MultiPatternConcatenationFilter(final TokenStream input, final ConcatenationRules rules) {
+        super(input);
+        this.rules = rules;
+        this.targetRules = new long[rules.maskLength()];
+    }
+
+    @Override
+    protected boolean isTarget() {
+        return rules.matchTargets(termAtt.buffer(), termAtt.length(), targetRules);
+    }
+
+    @Override
+    protected boolean isConcatenated() {
+        return rules.matchesFollower(termAtt.buffer(), termAtt.length(), targetRules);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codelibs.analysis.ja.PosConcatenationFilter.PartOfSpeechIdSupplier;
+import org.codelibs.analysis.ja.PosConcatenationFilter.PartOfSpeechSupplier;
+
+/**
+ * Assigns dense integer IDs to part-of-speech tags, so that {@link PosConcatenationFilter} can check a
+ * tag with a single bit test instead of a hash set lookup.
+ *
+ * <p>IDs are assigned on first use and never change. An instance is thread-safe and is meant to be shared
+ * by all filters of an analyzer: {@link #toBitSet(Collection)} maps the accepted tags once, and
+ * {@link #supplier(PartOfSpeechSupplier)} wraps the tag supplier of each filter.</p>
+ *
+ * <p>The wrapped supplier caches the ID of each tag instance it has seen, keyed by identity, so a tag
+ * costs a single bit test only if the tokenizer returns the same String instance for every occurrence
+ * of the tag, as kuromoji does for the tags of its system and user dictionaries. A tokenizer that
+ * creates a new String per token gets no benefit from the cache: each tag is then looked up in a
+ * {@link ConcurrentHashMap}, which hashes the String. The cache grows with the number of tags assigned
+ * an ID, so that it holds the whole tag vocabulary, up to {@value #MAX_CACHE_SIZE} slots.</p>
+ */
+public final class PartOfSpeechIds {
+
+    /** Default initial number of slots of the identity cache of a supplier */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /** Maximum number of slots of the identity cache of a supplier */
+    public static final int MAX_CACHE_SIZE = 1 << 16;
+
+    /** Number of slots probed for a tag instance before it replaces the tag in its first slot */
+    private static final int MAX_PROBES = 8;
+
+    /** ID of each tag */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /** The next ID to assign */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Returns the ID of a tag, assigning a new one if the tag has not been seen yet.
+     *
+     * @param pos the part-of-speech tag
+     * @return the ID of the tag
+     */
+    public int idOf(final String pos) {
+        final Integer id = ids.get(pos);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(pos, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Returns the number of IDs assigned so far.
+     *
+     * @return the number of tags
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    /**
+     * Returns a bit set of the IDs of the given tags.
+     *
+     * @param tags the part-of-speech tags
+     * @return the bit set with the ID of each tag set
+     */
+    public BitSet toBitSet(final Collection<String> tags) {
+        final BitSet bits = new BitSet();
+        for (final String tag : tags) {
+            bits.set(idOf(tag));
+        }
+        return bits;
+    }
+
+    /**
+     * Wraps a tag supplier into one that supplies the IDs of the tags. The returned supplier is not
+     * thread-safe, so create one for each filter. Its cache starts with room for the tags assigned an ID so
+     * far, and at least {@value #DEFAULT_CACHE_SIZE} slots.
+     *
+     * @param supplier the supplier of the tag of the current token
+     * @return the supplier of the ID of the tag of the current token
+     */
+    public PartOfSpeechIdSupplier supplier(final PartOfSpeechSupplier supplier) {
+        return supplier(supplier, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Wraps a tag supplier into one that supplies the IDs of the tags, with a cache of the given initial
+     * size. The returned supplier is not thread-safe, so create one for each filter.
+     *
+     * @param supplier the supplier of the tag of the current token
+     * @param cacheSize the initial number of slots of the cache, at least the expected number of tags;
+     *        rounded up to a power of two, and raised to twice the number of tags assigned an ID so far
+     * @return the supplier of the ID of the tag of the current token
+     * @throws IllegalArgumentException if cacheSize is not positive
+     */
+    public PartOfSpeechIdSupplier supplier(final PartOfSpeechSupplier supplier, final int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("cacheSize must be greater than zero: " + cacheSize);
+        }
+        return new CachingIdSupplier(supplier, cacheSize(Math.max(cacheSize, size() * 2)));
+    }
+
+    /**
+     * Returns the smallest power of two that is at least the given size, up to {@link #MAX_CACHE_SIZE}.
+     *
+     * @param size the requested size
+     * @return the number of slots
+     */
+    private static int cacheSize(final int size) {
+        return size >= MAX_CACHE_SIZE ? MAX_CACHE_SIZE : Math.max(1, Integer.highestOneBit(size - 1) << 1);
+    }
+
+    /**
+     * A supplier that caches the IDs of the tag instances it has seen, keyed by identity in an open
+     * addressing table that is grown to twice the number of tags assigned an ID.
+     */
+    private final class CachingIdSupplier implements PartOfSpeechIdSupplier {
+
+        /** The wrapped tag supplier */
+        private final PartOfSpeechSupplier supplier;
+
+        /** Tag instance cached in each slot, or null */
+        private String[] tags;
+
+        /** ID of the tag cached in each slot */
+        private int[] tagIds;
+
+        CachingIdSupplier(final PartOfSpeechSupplier supplier, final int cacheSize) {
+            this.supplier = supplier;
+            tags = new String[cacheSize];
+            tagIds = new int[cacheSize];
+        }
+
+        @Override
+        public int get() {
+            final String pos = supplier.get();
+            if (pos == null) {
+                return -1;
+            }
+            final int mask = tags.length - 1;
+            final int home = System.identityHashCode(pos) & mask;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                final int slot = (home + i) & mask;
+                final String tag = tags[slot];
+                if (tag == pos) {
+                    return tagIds[slot];
+                } else if (tag == null) {
+                    break;
+                }
+            }
+            final int id = idOf(pos);
+            if (tags.length < MAX_CACHE_SIZE && size() * 2 > tags.length) {
+                grow();
+            }
+            put(pos, id);
+            return id;
+        }
+
+        private void grow() {
+            final String[] oldTags = tags;
+            final int[] oldIds = tagIds;
+            final int cacheSize = cacheSize(size() * 2);
+            tags = new String[cacheSize];
+            tagIds = new int[cacheSize];
+            for (int i = 0; i < oldTags.length; i++) {
+                if (oldTags[i] != null) {
+                    put(oldTags[i], oldIds[i]);
+                }
+            }
+        }
+
+        private void put(final String pos, final int id) {
+            final int mask = tags.length - 1;
+            final int home = System.identityHashCode(pos) & mask;
+            int target = home;
+            for (int i = 0; i < MAX_PROBES; i++) {
+                final int slot = (home + i) & mask;
+                if (tags[slot] == null) {
+                    target = slot;
+                    break;
+                }
+            }
+            tags[target] = pos;
+            tagIds[target] = id;
+        }
+    }
+}
@@ -15,9 +15,14 @@
  */
 package org.codelibs.analysis.ja;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
 import org.codelibs.analysis.ConcatenationFilter;
 
 /**
@@ -28,14 +33,24 @@ import org.codelibs.analysis.ConcatenationFilter;
  *
  * <p>This filter is useful for Japanese text analysis where specific character patterns
  * need to be handled with custom concatenation logic based on regular expression matching.</p>
+ *
+ * <p>Each pattern is matched with one {@link Matcher} that is reset to the current term for every
+ * token. Simple patterns can be compiled with {@link #compile(Pattern)} into automata that match
+ * in linear time without any backtracking.</p>
  */
 public class PatternConcatenationFilter extends ConcatenationFilter {
 
-    /** Regular expression pattern used to identify target tokens */
-    private Pattern pattern1;
+    /** Matcher identifying target tokens, or null if an automaton is used */
+    private final Matcher matcher1;
+
+    /** Matcher determining concatenation behavior, or null if an automaton is used */
+    private final Matcher matcher2;
+
+    /** Automaton identifying target tokens, or null if a matcher is used */
+    private final CharacterRunAutomaton automaton1;
 
-    /** Regular expression pattern used to determine concatenation behavior */
-    private Pattern pattern2;
+    /** Automaton determining concatenation behavior, or null if a matcher is used */
+    private final CharacterRunAutomaton automaton2;
 
     /**
      * Constructs a PatternConcatenationFilter with the specified input token stream and patterns.
@@ -46,18 +61,140 @@ public class PatternConcatenationFilter extends ConcatenationFilter {
      */
     public PatternConcatenationFilter(TokenStream input, Pattern pattern1, Pattern pattern2) {
         super(input);
-        this.pattern1 = pattern1;
-        this.pattern2 = pattern2;
+        this.matcher1 = pattern1.matcher(termAtt);
+        this.matcher2 = pattern2.matcher(termAtt);
+        this.automaton1 = null;
+        this.automaton2 = null;
+    }
+
+    /**
+     * Constructs a PatternConcatenationFilter with the specified input token stream and automata.
+     *
+     * @param input the input TokenStream to filter
+     * @param automaton1 the automaton that accepts target tokens for potential concatenation
+     * @param automaton2 the automaton that accepts tokens to concatenate
+     * @see #compile(Pattern)
+     */
+    public PatternConcatenationFilter(final TokenStream input, final CharacterRunAutomaton automaton1,
+            final CharacterRunAutomaton automaton2) {
+        super(input);
+        this.matcher1 = null;
+        this.matcher2 = null;
+        this.automaton1 = automaton1;
+        this.automaton2 = automaton2;
     }
 
     @Override
     protected boolean isTarget() {
-        return pattern1.matcher(termAtt).matches();
+        if (automaton1 != null) {
+            return automaton1.run(termAtt.buffer(), 0, termAtt.length());
+        }
+        return matcher1.reset(termAtt).matches();
     }
 
     @Override
     protected boolean isConcatenated() {
-        return pattern2.matcher(termAtt).matches();
+        if (automaton2 != null) {
+            return automaton2.run(termAtt.buffer(), 0, termAtt.length());
+        }
+        return matcher2.reset(termAtt).matches();
+    }
+
+    /**
+     * Compiles a pattern into an automaton that accepts the same terms as {@link Matcher#matches()}.
+     *
+     * <p>Only patterns without flags built from literal characters, escaped punctuation, the classes
+     * \d, \D, \w and \W, character classes such as [0-9] or [^ぁ-ん], groups, alternation and greedy
+     * quantifiers are supported.</p>
+     *
+     * @param pattern the pattern to compile
+     * @return the automaton
+     * @throws IllegalArgumentException if the pattern uses an unsupported construct
+     */
+    public static CharacterRunAutomaton compile(final Pattern pattern) {
+        return new CharacterRunAutomaton(toAutomaton(pattern));
+    }
+
+    /**
+     * Converts a pattern into a deterministic automaton, see {@link #compile(Pattern)}.
+     *
+     * @param pattern the pattern to convert
+     * @return the automaton
+     * @throws IllegalArgumentException if the pattern uses an unsupported construct
+     */
+    static Automaton toAutomaton(final Pattern pattern) {
+        final String regex = pattern.pattern();
+        if (pattern.flags() != 0) {
+            throw new IllegalArgumentException("Pattern flags are not supported: " + regex);
+        }
+        // The supported subset has the same meaning in Lucene's RegExp syntax, so only reject the rest.
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            final char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+            switch (c) {
+            case '\\':
+                if (next == 0 || Character.isLetterOrDigit(next) && "dDwW".indexOf(next) < 0) {
+                    throw unsupported(regex, i);
+                }
+                i++;
+                break;
+            case '[':
+                if (inClass) {
+                    throw unsupported(regex, i);
+                }
+                inClass = true;
+                if (next == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    throw unsupported(regex, i);
+                }
+                break;
+            case ']':
+                inClass = false;
+                break;
+            case '-':
+                if (inClass && next == ']') {
+                    throw unsupported(regex, i);
+                }
+                break;
+            case '&':
+                if (inClass) {
+                    throw unsupported(regex, i);
+                }
+                break;
+            case '.':
+            case '^':
+            case '$':
+            case '"':
+                if (!inClass) {
+                    throw unsupported(regex, i);
+                }
+                break;
+            case '(':
+                if (!inClass && next == '?') {
+                    throw unsupported(regex, i);
+                }
+                break;
+            case '*':
+            case '+':
+            case '?':
+            case '}':
+                // reluctant and possessive quantifiers
+                if (!inClass && (next == '?' || next == '+')) {
+                    throw unsupported(regex, i);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        return Operations.determinize(new RegExp(regex, RegExp.NONE).toAutomaton(), Operations.DEFAULT_DETERMINIZE_WORK_LIMIT);
+    }
+
+    private static IllegalArgumentException unsupported(final String regex, final int pos) {
+        return new IllegalArgumentException("Unsupported construct at position " + pos + " in pattern: " + regex);
     }
 
 }
@@ -15,6 +15,7 @@
  */
 package org.codelibs.analysis.ja;
 
+import java.util.BitSet;
 import java.util.Set;
 
 import org.apache.lucene.analysis.TokenStream;
@@ -28,15 +29,26 @@ import org.codelibs.analysis.ConcatenationFilter;
  * <p>This filter is particularly useful for Japanese text analysis where linguistic analysis
  * provides POS information that can guide token concatenation decisions. It relies on a
  * PartOfSpeechSupplier to provide the current token's POS tag.</p>
+ *
+ * <p>Alternatively, the tags can be given as IDs assigned by {@link PartOfSpeechIds}, with a
+ * PartOfSpeechIdSupplier providing the ID of the current token's tag. Each check is then a single
+ * bit test instead of a hash set lookup, as long as the tokenizer returns the same String instance
+ * for every occurrence of a tag; see {@link PartOfSpeechIds}.</p>
  */
 public class PosConcatenationFilter extends ConcatenationFilter {
 
-    /** Set of part-of-speech tags used to determine concatenation behavior */
+    /** Set of part-of-speech tags used to determine concatenation behavior, or null if IDs are used */
     private final Set<String> posTags;
 
-    /** Supplier that provides part-of-speech information for the current token */
+    /** Supplier that provides part-of-speech information for the current token, or null if IDs are used */
     private final PartOfSpeechSupplier supplier;
 
+    /** IDs of the part-of-speech tags used to determine concatenation behavior, or null if tags are used */
+    private final BitSet posTagIds;
+
+    /** Supplier that provides the part-of-speech ID of the current token, or null if tags are used */
+    private final PartOfSpeechIdSupplier idSupplier;
+
     /**
      * Constructs a PosConcatenationFilter with the specified input token stream, POS tags, and supplier.
      *
@@ -48,16 +60,41 @@ public class PosConcatenationFilter extends ConcatenationFilter {
         super(input);
         this.posTags = posTags;
         this.supplier = supplier;
+        this.posTagIds = null;
+        this.idSupplier = null;
+    }
+
+    /**
+     * Constructs a PosConcatenationFilter with the specified input token stream, POS tag IDs, and supplier.
+     *
+     * @param input the input TokenStream to filter
+     * @param posTagIds the IDs of the part-of-speech tags that determine concatenation behavior
+     * @param idSupplier the PartOfSpeechIdSupplier that provides POS tag IDs for tokens
+     * @see PartOfSpeechIds
+     */
+    public PosConcatenationFilter(final TokenStream input, final BitSet posTagIds, final PartOfSpeechIdSupplier idSupplier) {
+        super(input);
+        this.posTags = null;
+        this.supplier = null;
+        this.posTagIds = posTagIds;
+        this.idSupplier = idSupplier;
     }
 
     @Override
     protected boolean isTarget() {
-        final String pos = supplier.get();
-        return pos != null && posTags.contains(pos);
+        return isPosTag();
     }
 
     @Override
     protected boolean isConcatenated() {
+        return isPosTag();
+    }
+
+    private boolean isPosTag() {
+        if (idSupplier != null) {
+            final int id = idSupplier.get();
+            return id >= 0 && posTagIds.get(id);
+        }
         final String pos = supplier.get();
         return pos != null && posTags.contains(pos);
     }
@@ -74,4 +111,18 @@ public class PosConcatenationFilter extends ConcatenationFilter {
          */
         String get();
     }
+
+    /**
+     * Functional interface that supplies the part-of-speech tag ID of the current token.
+     *
+     * @see PartOfSpeechIds#supplier(PartOfSpeechSupplier)
+     */
+    public interface PartOfSpeechIdSupplier {
+        /**
+         * Retrieves the part-of-speech tag ID for the current token.
+         *
+         * @return the non-negative POS tag ID, or -1 if no POS information is available
+         */
+        int get();
+    }
 }
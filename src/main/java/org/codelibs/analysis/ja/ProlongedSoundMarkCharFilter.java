@@ -16,7 +16,6 @@
 package org.codelibs.analysis.ja;
 
 import java.io.Reader;
-import java.lang.Character.UnicodeBlock;
 
 import org.codelibs.analysis.BufferedCharFilter;
 
@@ -86,47 +85,77 @@ public class ProlongedSoundMarkCharFilter extends BufferedCharFilter {
      * @param replacement the character to use when replacing dash characters that follow Japanese characters
      */
     public ProlongedSoundMarkCharFilter(final Reader in, final char replacement) {
-        super(in);
+        this(in, replacement, 0);
+    }
+
+    /**
+     * Constructs a ProlongedSoundMarkCharFilter with a custom replacement character that processes the input
+     * in windows of the given size.
+     *
+     * @param in the Reader providing the input character stream
+     * @param replacement the character to use when replacing dash characters that follow Japanese characters
+     * @param windowSize the number of characters to process per window, or 0 to buffer the whole input
+     */
+    public ProlongedSoundMarkCharFilter(final Reader in, final char replacement, final int windowSize) {
+        super(in, windowSize);
         this.replacement = replacement;
     }
 
+    @Override
+    protected int getLookBehind() {
+        // a dash is replaced depending on the preceding character
+        return 1;
+    }
+
+    @Override
+    protected int getLookAhead() {
+        return 0;
+    }
+
     @Override
     protected CharSequence processInput(final CharSequence input) {
-        final StringBuilder buf = new StringBuilder(input.length());
-        char prev = 0;
-        for (int pos = 0; pos < input.length(); pos++) {
-            final char c = input.charAt(pos);
-            switch (c) {
-            case U002D:
-            case UFF0D:
-            case U2010:
-            case U2011:
-            case U2012:
-            case U2013:
-            case U2014:
-            case U2015:
-            case U207B:
-            case U208B:
-            case U30FC:
-                if (prev != 0) {
-                    final UnicodeBlock block = UnicodeBlock.of(prev);
-                    if (block == UnicodeBlock.HIRAGANA || block == UnicodeBlock.KATAKANA
-                            || block == UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS) {
-                        buf.append(replacement);
-                    } else {
-                        buf.append(c);
-                    }
-                } else {
-                    buf.append(c);
-                }
-                break;
-            default:
-                buf.append(c);
-                break;
-            }
+        return processWhole(input);
+    }
+
+    @Override
+    protected int processInput(final char[] input, final int start, final int end, final int length) {
+        char prev = start > 0 ? input[start - 1] : 0;
+        for (int pos = start; pos < end; pos++) {
+            final char c = input[pos];
+            append(normalize(c, prev, replacement));
             prev = c;
         }
-        return buf;
+        return end;
+    }
+
+    /**
+     * Replaces a dash-like character that follows a Hiragana or Katakana character.
+     *
+     * @param c the character to normalize
+     * @param prev the preceding input character, or 0 at the beginning of the input
+     * @param replacement the prolonged sound mark to use
+     * @return the replacement if c is a dash-like character following kana, otherwise c
+     */
+    static char normalize(final char c, final char prev, final char replacement) {
+        switch (c) {
+        case U002D:
+        case UFF0D:
+        case U2010:
+        case U2011:
+        case U2012:
+        case U2013:
+        case U2014:
+        case U2015:
+        case U207B:
+        case U208B:
+        case U30FC:
+            if (prev != 0 && JapaneseCharClass.isKana(prev)) {
+                return replacement;
+            }
+            return c;
+        default:
+            return c;
+        }
     }
 
 }
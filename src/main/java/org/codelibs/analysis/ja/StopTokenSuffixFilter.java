@@ -16,7 +16,10 @@
 package org.codelibs.analysis.ja;
 
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.util.VirtualMethod;
+import org.codelibs.analysis.CompiledWordSet;
 import org.codelibs.analysis.StopTokenFilter;
+import org.codelibs.analysis.WordTrie;
 
 /**
  * A stop token filter that removes tokens ending with any of the specified suffix words.
@@ -31,6 +34,19 @@ import org.codelibs.analysis.StopTokenFilter;
  */
 public class StopTokenSuffixFilter extends StopTokenFilter {
 
+    /** Detects subclasses that override {@link #accept(String, String)} */
+    private static final VirtualMethod<StopTokenSuffixFilter> ACCEPT_METHOD =
+            new VirtualMethod<>(StopTokenSuffixFilter.class, "accept", String.class, String.class);
+
+    /** Whether a subclass overrides accept(String, String), so that the words are checked through it */
+    private final boolean acceptOverridden;
+
+    /** Trie over the suffix words, or null if a compiled word set is used */
+    private final WordTrie trie;
+
+    /** Compiled suffix words, or null if the words are given as an array */
+    private final CompiledWordSet compiledWords;
+
     /**
      * Constructs a StopTokenSuffixFilter with the specified input stream, suffix words, and case sensitivity.
      *
@@ -40,8 +56,61 @@ public class StopTokenSuffixFilter extends StopTokenFilter {
      */
     public StopTokenSuffixFilter(TokenStream in, String[] words, boolean ignoreCase) {
         super(in, words, ignoreCase);
+        trie = new WordTrie(normalizedWords, true);
+        compiledWords = null;
+        acceptOverridden = ACCEPT_METHOD.isOverriddenAsOf(getClass());
     }
 
+    /**
+     * Constructs a StopTokenSuffixFilter that matches the words of a compiled word set. Case sensitivity
+     * is the one the set was compiled with.
+     *
+     * @param in the input TokenStream to filter
+     * @param words the suffix words, compiled reversed
+     * @throws IllegalArgumentException if the words are not compiled reversed
+     */
+    public StopTokenSuffixFilter(final TokenStream in, final CompiledWordSet words) {
+        super(in, new String[0], words.isIgnoreCase());
+        if (!words.isReversed()) {
+            throw new IllegalArgumentException("Suffix words must be compiled reversed.");
+        }
+        trie = null;
+        compiledWords = words;
+        acceptOverridden = false;
+    }
+
+    @Override
+    protected boolean matches(final char[] buffer, final int length) {
+        if (acceptOverridden) {
+            return super.matches(buffer, length);
+        }
+        if (compiledWords != null) {
+            return compiledWords.matches(buffer, 0, length);
+        }
+        return trie.matches(buffer, 0, length, ignoreCase);
+    }
+
+    @Override
+    protected boolean matches(final String text) {
+        if (acceptOverridden) {
+            return super.matches(text);
+        }
+        if (compiledWords != null) {
+            return compiledWords.matches(text);
+        }
+        return trie.matches(text);
+    }
+
+    /**
+     * Checks whether the text ends with the word. The filter matches the words with a trie and calls
+     * this method only if a subclass overrides it, in which case every token is checked against every
+     * word through it. It is not called for a compiled word set.
+     *
+     * @param text the current token's text (converted to lowercase if ignoreCase is true)
+     * @param word the stop word to compare against
+     * @return true if the token should be filtered out
+     */
+    @Override
     protected boolean accept(final String text, String word) {
         return text.endsWith(word);
     }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+
+/**
+ * Measures the bytes allocated by the current thread per token while a filter consumes a fixed
+ * sequence of terms, so that tests can keep filters within an allocation budget.
+ *
+ * <p>The filter is created once and reused through {@link TokenStream#reset()}, like an analyzer
+ * reuses its components, and the measurement starts after enough rounds for the JIT to compile
+ * the filter. The source stream itself does not allocate.</p>
+ */
+public final class AllocationMeter {
+
+    private static final int WARMUP_ROUNDS = 200;
+
+    private static final int MEASURED_ROUNDS = 20;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Checks whether the JVM reports the bytes allocated by a thread.
+     *
+     * @return true if allocations can be measured
+     */
+    public static boolean isSupported() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()
+                && bean.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Returns the bytes allocated per input token while the filter consumes the terms.
+     *
+     * @param terms the terms of the source stream
+     * @param filter creates the filter under test on top of the source stream
+     * @return the allocated bytes per input token
+     * @throws IOException if the stream fails
+     */
+    public static double bytesPerToken(final String[] terms, final Function<TokenStream, TokenStream> filter) throws IOException {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final TokenStream stream = filter.apply(new TermReplayStream(terms));
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            consume(stream);
+        }
+        final long start = bean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            consume(stream);
+        }
+        final long allocated = bean.getCurrentThreadAllocatedBytes() - start;
+        return (double) allocated / ((long) terms.length * MEASURED_ROUNDS);
+    }
+
+    /**
+     * Builds a sequence of terms by cycling through the given terms.
+     *
+     * @param count the number of terms
+     * @param terms the terms to cycle through
+     * @return the sequence of terms
+     */
+    public static String[] repeat(final int count, final String... terms) {
+        final String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = terms[i % terms.length];
+        }
+        return result;
+    }
+
+    private static void consume(final TokenStream stream) throws IOException {
+        stream.reset();
+        while (stream.incrementToken()) {
+            // only the allocations matter
+        }
+        stream.end();
+        stream.close();
+    }
+
+    /**
+     * Replays the same terms on every reset without allocating.
+     */
+    private static final class TermReplayStream extends TokenStream {
+
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+
+        private final char[][] terms;
+
+        private int index;
+
+        private int offset;
+
+        TermReplayStream(final String[] terms) {
+            this.terms = new char[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                this.terms[i] = terms[i].toCharArray();
+            }
+        }
+
+        @Override
+        public boolean incrementToken() {
+            if (index == terms.length) {
+                return false;
+            }
+            clearAttributes();
+            final char[] term = terms[index++];
+            termAtt.copyBuffer(term, 0, term.length);
+            offsetAtt.setOffset(offset, offset + term.length);
+            offset += term.length + 1;
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            offsetAtt.setOffset(offset, offset);
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            index = 0;
+            offset = 0;
+        }
+    }
+}
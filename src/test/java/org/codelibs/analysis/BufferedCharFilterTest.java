@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.apache.lucene.tests.analysis.MockTokenizer;
+import org.junit.Test;
+
+public class BufferedCharFilterTest extends BaseTokenStreamTestCase {
+
+    /**
+     * Removes '-' and expands '&amp;' to "and".
+     */
+    private static class LengthChangingCharFilter extends BufferedCharFilter {
+
+        LengthChangingCharFilter(final Reader in, final int windowSize) {
+            super(in, windowSize);
+        }
+
+        @Override
+        protected int getLookBehind() {
+            return 0;
+        }
+
+        @Override
+        protected int getLookAhead() {
+            return 0;
+        }
+
+        @Override
+        protected CharSequence processInput(final CharSequence input) {
+            return processWhole(input);
+        }
+
+        @Override
+        protected int processInput(final char[] input, final int start, final int end, final int length) {
+            for (int pos = start; pos < end; pos++) {
+                final char c = input[pos];
+                if (c == '-') {
+                    addOffsetCorrection(pos + 1, 1);
+                } else if (c == '&') {
+                    append(AND, 0, AND.length);
+                    addOffsetCorrection(pos + 1, -2);
+                } else {
+                    append(c);
+                }
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Upper-cases the input through the CharSequence based processInput.
+     */
+    private static class UpperCaseCharFilter extends BufferedCharFilter {
+
+        UpperCaseCharFilter(final Reader in) {
+            super(in);
+        }
+
+        @Override
+        protected CharSequence processInput(final CharSequence input) {
+            return input.toString().toUpperCase(Locale.ROOT);
+        }
+    }
+
+    private static final char[] AND = "and".toCharArray();
+
+    private TokenStream createTokenStream(final String text, final int windowSize) throws IOException {
+        final Reader cs = new LengthChangingCharFilter(new StringReader(text), windowSize);
+        final MockTokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        tokenizer.setReader(cs);
+        return tokenizer;
+    }
+
+    @Test
+    public void testOffsetCorrection() throws IOException {
+        for (final int windowSize : new int[] { 0, 1, 2, 5, 100 }) {
+            assertTokenStreamContents(createTokenStream("a-b c&d e--f g", windowSize), //
+                    new String[] { "ab", "candd", "ef", "g" }, //
+                    new int[] { 0, 4, 8, 13 }, //
+                    new int[] { 3, 7, 12, 14 });
+            assertTokenStreamContents(createTokenStream("--- &", windowSize), //
+                    new String[] { "and" }, //
+                    new int[] { 4 }, //
+                    new int[] { 5 });
+        }
+    }
+
+    @Test
+    public void testCharSequenceProcessing() throws IOException {
+        final MockTokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        tokenizer.setReader(new UpperCaseCharFilter(new StringReader("aaa bbb")));
+        assertTokenStreamContents(tokenizer, new String[] { "AAA", "BBB" }, new int[] { 0, 4 }, new int[] { 3, 7 });
+    }
+
+    @Test
+    public void testReuseAcrossDocuments() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            buf.append("x-y ");
+        }
+        final String longText = buf.toString();
+        for (final int windowSize : new int[] { 0, 16 }) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(longText.replace("-", ""), readAll(new LengthChangingCharFilter(new StringReader(longText), windowSize)));
+                assertEquals("ab", readAll(new LengthChangingCharFilter(new StringReader("a-b"), windowSize)));
+                assertEquals("", readAll(new LengthChangingCharFilter(new StringReader(""), windowSize)));
+            }
+        }
+    }
+
+    private String readAll(final Reader reader) throws IOException {
+        try (reader) {
+            final StringBuilder buf = new StringBuilder();
+            final char[] temp = new char[100];
+            for (int cnt = reader.read(temp); cnt >= 0; cnt = reader.read(temp)) {
+                buf.append(temp, 0, cnt);
+            }
+            return buf.toString();
+        }
+    }
+
+    @Test
+    public void testSharedBuffers() throws IOException {
+        final BufferedCharFilter.Buffers buffers = new BufferedCharFilter.Buffers();
+        final String longText = "x-y ".repeat(5000);
+        for (final int windowSize : new int[] { 0, 16 }) {
+            for (int i = 0; i < 3; i++) {
+                final LengthChangingCharFilter filter = new LengthChangingCharFilter(new StringReader(longText), windowSize);
+                filter.setBuffers(buffers);
+                // a filter created while the buffers are taken allocates its own
+                final LengthChangingCharFilter other = new LengthChangingCharFilter(new StringReader("a&b"), windowSize);
+                other.setBuffers(buffers);
+                assertEquals('x', filter.read());
+                expectThrows(IllegalStateException.class, () -> filter.setBuffers(null));
+                assertEquals("aandb", readAll(other));
+                assertEquals(longText.replace("-", "").substring(1), readAll(filter));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedBuffersAllocation() throws IOException {
+        assumeTrue("allocated bytes are not reported", AllocationMeter.isSupported());
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final BufferedCharFilter.Buffers buffers = new BufferedCharFilter.Buffers();
+        final String text = "xy ".repeat(10000);
+        final char[] sink = new char[256];
+        for (int i = 0; i < 200; i++) {
+            assertEquals(text.length(), drain(new LengthChangingCharFilter(new StringReader(text), 0), buffers, sink));
+        }
+        final long start = bean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10; i++) {
+            drain(new LengthChangingCharFilter(new StringReader(text), 0), buffers, sink);
+        }
+        final long allocated = (bean.getCurrentThreadAllocatedBytes() - start) / 10;
+        // buffering the document in fresh arrays would take at least 2 bytes per character
+        assertTrue("allocated " + allocated + " bytes per document", allocated < text.length());
+    }
+
+    private static int drain(final BufferedCharFilter filter, final BufferedCharFilter.Buffers buffers, final char[] sink) throws IOException {
+        filter.setBuffers(buffers);
+        int count = 0;
+        try (filter) {
+            for (int cnt = filter.read(sink); cnt >= 0; cnt = filter.read(sink)) {
+                count += cnt;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testProcessWhole() throws IOException {
+        try (LengthChangingCharFilter filter = new LengthChangingCharFilter(new StringReader("x-y"), 0)) {
+            assertEquals("abandc", filter.processInput("a-b&c").toString());
+            // corrections of the processed sequence are not recorded for the filter's own input
+            assertEquals(3, filter.correctOffset(3));
+            assertEquals("xy", readAll(filter));
+            assertEquals(3, filter.correctOffset(2));
+        }
+    }
+
+    @Test
+    public void testNoCorrection() throws IOException {
+        for (final int windowSize : new int[] { 0, 3 }) {
+            assertTokenStreamContents(createTokenStream("aaa bbb", windowSize), //
+                    new String[] { "aaa", "bbb" }, //
+                    new int[] { 0, 4 }, //
+                    new int[] { 3, 7 });
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class CompiledWordSetTest extends LuceneTestCase {
+
+    @Test
+    public void testCompile() throws IOException {
+        final Path wordPath = Files.createTempFile("cws_", ".txt");
+        Files.writeString(wordPath, "aaa\n  bbb \n\nAbc\n", StandardCharsets.UTF_8);
+        final Path compiledPath = Files.createTempFile("cws_", ".fst");
+        CompiledWordSet.compile(wordPath, compiledPath, false, false);
+
+        assertTrue(CompiledWordSet.isCompiled(compiledPath));
+        assertFalse(CompiledWordSet.isCompiled(wordPath));
+
+        final CompiledWordSet wordSet = CompiledWordSet.open(compiledPath);
+        assertEquals(3, wordSet.size());
+        assertFalse(wordSet.isIgnoreCase());
+        assertFalse(wordSet.isReversed());
+        assertTrue(wordSet.contains("aaa"));
+        assertTrue(wordSet.contains("bbb"));
+        assertTrue(wordSet.contains("Abc"));
+        assertFalse(wordSet.contains("abc"));
+        assertFalse(wordSet.contains("aa"));
+        assertFalse(wordSet.contains("aaaa"));
+        assertFalse(wordSet.contains(""));
+        assertTrue(wordSet.contains("xaaax".toCharArray(), 1, 3));
+        assertTrue(wordSet.matches("aaaa"));
+        assertFalse(wordSet.matches("aab"));
+    }
+
+    @Test
+    public void testIgnoreCase() throws IOException {
+        final CompiledWordSet wordSet = write(List.of("AbC", "𐐀x"), true, false);
+        assertTrue(wordSet.isIgnoreCase());
+        assertTrue(wordSet.contains("abc"));
+        assertTrue(wordSet.contains("ABC"));
+        assertTrue(wordSet.contains("𐐨x"));
+        assertTrue(wordSet.contains("𐐀X"));
+        assertTrue(wordSet.matches("aBcd"));
+    }
+
+    @Test
+    public void testReversed() throws IOException {
+        final CompiledWordSet wordSet = write(List.of("ing", "ED"), true, true);
+        assertTrue(wordSet.isReversed());
+        assertTrue(wordSet.contains("ing"));
+        assertTrue(wordSet.contains("Ed"));
+        assertFalse(wordSet.contains("ding"));
+        assertTrue(wordSet.matches("testING"));
+        assertTrue(wordSet.matches("tested"));
+        assertFalse(wordSet.matches("ingest"));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final CompiledWordSet empty = write(List.of(), false, false);
+        assertEquals(0, empty.size());
+        assertFalse(empty.contains(""));
+        assertFalse(empty.matches("a"));
+
+        final CompiledWordSet emptyWord = write(List.of(""), false, false);
+        assertEquals(1, emptyWord.size());
+        assertTrue(emptyWord.contains(""));
+        assertFalse(emptyWord.contains("a"));
+        assertTrue(emptyWord.matches("a"));
+    }
+
+    @Test
+    public void testCorrupted() throws IOException {
+        final Path path = Files.createTempFile("cws_", ".fst");
+        CompiledWordSet.write(List.of("aaa", "bbb"), path, false, false);
+        try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.APPEND)) {
+            out.write(0);
+        }
+        expectThrows(IOException.class, () -> CompiledWordSet.open(path));
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        final CompiledWordSet wordSet = write(List.of("aaa", "bbb"), false, false);
+        final Thread[] threads = new Thread[4];
+        final boolean[] found = new boolean[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread(() -> {
+                boolean ok = true;
+                for (int j = 0; j < 1000; j++) {
+                    ok &= wordSet.contains("aaa") && wordSet.matches("bbbb") && !wordSet.contains("ccc");
+                }
+                found[n] = ok;
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertTrue(found[i]);
+        }
+        // the readers of the other threads are released without them
+        wordSet.close();
+    }
+
+    @Test
+    public void testSameAsCharArraySet() throws IOException {
+        final Random random = random();
+        final String[] chars = { "a", "A", "b", "B", "あ", "𐐀", "𐐨" };
+        for (int i = 0; i < 20; i++) {
+            final boolean ignoreCase = random.nextBoolean();
+            final List<String> words = new ArrayList<>();
+            for (int j = random.nextInt(50); j > 0; j--) {
+                words.add(randomText(random, chars, 1 + random.nextInt(4)));
+            }
+            final CharArraySet expected = new CharArraySet(words, ignoreCase);
+            final CompiledWordSet forward = write(words, ignoreCase, false);
+            final CompiledWordSet reversed = write(words, ignoreCase, true);
+            assertEquals(expected.size(), forward.size());
+            for (int j = 0; j < 200; j++) {
+                final String text = j < words.size() ? words.get(j) : randomText(random, chars, random.nextInt(6));
+                final char[] buffer = text.toCharArray();
+                assertEquals(text, expected.contains(text), forward.contains(buffer, 0, buffer.length));
+                assertEquals(text, expected.contains(text), reversed.contains(buffer, 0, buffer.length));
+                boolean startsWith = false;
+                boolean endsWith = false;
+                for (int k = 0; k <= buffer.length; k++) {
+                    if (k < buffer.length && Character.isLowSurrogate(buffer[k])) {
+                        continue;
+                    }
+                    startsWith |= expected.contains(buffer, 0, k);
+                    endsWith |= expected.contains(buffer, k, buffer.length - k);
+                }
+                assertEquals(text, startsWith, forward.matches(buffer, 0, buffer.length));
+                assertEquals(text, endsWith, reversed.matches(buffer, 0, buffer.length));
+            }
+        }
+    }
+
+    private static CompiledWordSet write(final List<String> words, final boolean ignoreCase, final boolean reversed) throws IOException {
+        final Path path = Files.createTempFile("cws_", ".fst");
+        CompiledWordSet.write(words, path, ignoreCase, reversed);
+        return CompiledWordSet.open(path);
+    }
+
+    private static String randomText(final Random random, final String[] chars, final int length) {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            buf.append(chars[random.nextInt(chars.length)]);
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+
+@ThreadLeakFilters(filters = WordSetWatcherThreadFilter.class)
+public class WordSetRegistryTest extends LuceneTestCase {
+
+    @Test
+    public void testShared() throws IOException {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\nBBB\n", StandardCharsets.UTF_8);
+
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, true, 1000);
+        assertSame(handle.get(), WordSetRegistry.get(path, true, 1000).get());
+        assertSame(handle.get(), WordSetRegistry.get(path.getParent().resolve(".").resolve(path.getFileName()), true, 1000).get());
+        assertTrue(handle.get().contains("AAA".toCharArray(), 0, 3));
+        assertTrue(handle.get().contains("bbb".toCharArray(), 0, 3));
+
+        final WordSetRegistry.Handle caseSensitive = WordSetRegistry.get(path, false, 1000);
+        assertNotSame(handle.get(), caseSensitive.get());
+        assertFalse(caseSensitive.get().contains("AAA".toCharArray(), 0, 3));
+        assertTrue(caseSensitive.get().contains("BBB".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, false, 100);
+        final WordSetRegistry.Entry entry = handle.get();
+        assertTrue(entry.contains("aaa".toCharArray(), 0, 3));
+
+        replace(path, "bbb\n");
+
+        final WordSetRegistry.Entry reloaded = awaitReload(handle, entry);
+        assertTrue(reloaded.getGeneration() > entry.getGeneration());
+        assertEquals(reloaded.getGeneration(), handle.getGeneration());
+        assertFalse(reloaded.contains("aaa".toCharArray(), 0, 3));
+        assertTrue(reloaded.contains("bbb".toCharArray(), 0, 3));
+        // the previous set is unchanged
+        assertTrue(entry.contains("aaa".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testReloadFailure() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, false, 100);
+        final WordSetRegistry.Entry entry = handle.get();
+
+        // compiled with another case sensitivity, so it cannot be loaded
+        final Path temp = Files.createTempFile(path.getParent(), "wsr_", ".tmp");
+        CompiledWordSet.write(List.of("bbb"), temp, true, false);
+        move(temp, path);
+        // the second check started after the file was replaced
+        final long checks = handle.getCheckCount();
+        await(() -> handle.getCheckCount() >= checks + 2, "the file is not checked");
+        assertSame(entry, handle.get());
+
+        replace(path, "ccc\n");
+        assertTrue(awaitReload(handle, entry).contains("ccc".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testDelta() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\nbbb\n", StandardCharsets.UTF_8);
+        final Path deltaPath = path.resolveSibling(path.getFileName() + WordSetRegistry.DELTA_SUFFIX);
+        Files.writeString(deltaPath, "+Ccc\n", StandardCharsets.UTF_8);
+        try {
+            final WordSetRegistry.Handle handle = WordSetRegistry.get(path, true, 100);
+            WordSetRegistry.Entry entry = handle.get();
+            assertTrue(entry.contains("ccc".toCharArray(), 0, 3));
+
+            // a partial line is applied once it is complete
+            Files.writeString(deltaPath, "-AAA\n+dd", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            entry = awaitReload(handle, entry);
+            assertFalse(entry.contains("aaa".toCharArray(), 0, 3));
+            assertTrue(entry.contains("bbb".toCharArray(), 0, 3));
+            assertTrue(entry.contains("ccc".toCharArray(), 0, 3));
+            assertFalse(entry.contains("ddd".toCharArray(), 0, 3));
+            Files.writeString(deltaPath, "d\n+aaa\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            entry = awaitReload(handle, entry);
+            assertTrue(entry.contains("aaa".toCharArray(), 0, 3));
+            assertTrue(entry.contains("ddd".toCharArray(), 0, 3));
+
+            // a replaced delta file is applied from the beginning
+            replace(deltaPath, "-bbb\n");
+            entry = awaitReload(handle, entry);
+            assertTrue(entry.contains("aaa".toCharArray(), 0, 3));
+            assertFalse(entry.contains("bbb".toCharArray(), 0, 3));
+            assertFalse(entry.contains("ccc".toCharArray(), 0, 3));
+
+            // a modified file is loaded with the delta file applied
+            replace(path, "eee\nbbb\n");
+            entry = awaitReload(handle, entry);
+            assertFalse(entry.contains("aaa".toCharArray(), 0, 3));
+            assertFalse(entry.contains("bbb".toCharArray(), 0, 3));
+            assertTrue(entry.contains("eee".toCharArray(), 0, 3));
+
+            Files.delete(deltaPath);
+            entry = awaitReload(handle, entry);
+            assertTrue(entry.contains("bbb".toCharArray(), 0, 3));
+        } finally {
+            Files.deleteIfExists(deltaPath);
+        }
+    }
+
+    @Test
+    public void testCheckInterval() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, false, 60000);
+        assertEquals(60000, handle.getEffectiveCheckInterval());
+
+        // a zero interval is raised to the minimum, and only applies while its handle is in use
+        WordSetRegistry.Handle shorter = WordSetRegistry.get(path, false, 0);
+        assertEquals(WordSetRegistry.MIN_CHECK_INTERVAL, handle.getEffectiveCheckInterval());
+        assertSame(handle.get(), shorter.get());
+        shorter = null;
+        await(() -> {
+            System.gc();
+            return handle.getEffectiveCheckInterval() == 60000;
+        }, "the shorter interval is still in use");
+    }
+
+    @Test
+    public void testMinimumCheckInterval() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, false, 0);
+        assertEquals(WordSetRegistry.MIN_CHECK_INTERVAL, handle.getEffectiveCheckInterval());
+
+        await(() -> handle.getCheckCount() > 0, "the file is not checked");
+        final long start = System.nanoTime();
+        final long checks = handle.getCheckCount();
+        await(() -> handle.getCheckCount() >= checks + 2, "the file is not checked");
+        // two more checks are at least one interval apart, however slow the machine is
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(WordSetRegistry.MIN_CHECK_INTERVAL));
+        assertTrue(handle.get().contains("aaa".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testShorterIntervalWakesWatcher() throws Exception {
+        // created first, so that no change notification wakes the watcher up
+        final Path other = Files.createTempFile(Files.createTempDirectory("wsr_"), "wsr_", ".txt");
+        Files.writeString(other, "bbb\n", StandardCharsets.UTF_8);
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, false, 60000);
+        final Thread watcher = Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .filter(t -> WordSetRegistry.WATCHER_THREAD_NAME.equals(t.getName()))
+                .findFirst()
+                .orElseThrow();
+        await(() -> watcher.getState() == Thread.State.TIMED_WAITING, "the watcher is not waiting");
+
+        // the watcher may be waiting for the long interval, and must not wait that long for the new file
+        final WordSetRegistry.Handle shorter = WordSetRegistry.get(other, false, 100);
+        await(() -> shorter.getCheckCount() > 0, "the new file is not checked");
+        assertTrue(handle.get().contains("aaa".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testUnusedSlotRemoved() throws Exception {
+        final Path path = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(path, "aaa\n", StandardCharsets.UTF_8);
+        // keeps the watcher checking while the other handle is collected
+        final WordSetRegistry.Handle ticking = WordSetRegistry.get(path, false, 100);
+
+        final Path unused = Files.createTempFile("wsr_", ".txt");
+        Files.writeString(unused, "bbb\n", StandardCharsets.UTF_8);
+        WordSetRegistry.Handle handle = WordSetRegistry.get(unused, false, 100);
+        assertTrue(WordSetRegistry.isRegistered(unused, false));
+        handle = null;
+        await(() -> {
+            System.gc();
+            return !WordSetRegistry.isRegistered(unused, false);
+        }, "the unused file is still registered");
+        assertTrue(WordSetRegistry.isRegistered(path, false));
+
+        // loaded again when it is requested again
+        assertTrue(WordSetRegistry.get(unused, false, 100).get().contains("bbb".toCharArray(), 0, 3));
+        assertTrue(ticking.get().contains("aaa".toCharArray(), 0, 3));
+    }
+
+    @Test
+    public void testCompiled() throws IOException {
+        final Path path = Files.createTempFile("wsr_", ".fst");
+        CompiledWordSet.write(List.of("aaa"), path, true, false);
+
+        final WordSetRegistry.Handle handle = WordSetRegistry.get(path, true, 1000);
+        assertTrue(handle.get().contains("AAA".toCharArray(), 0, 3));
+        expectThrows(IllegalArgumentException.class, () -> WordSetRegistry.get(path, false, 1000));
+    }
+
+    @Test
+    public void testMissingFile() {
+        expectThrows(IOException.class,
+                () -> WordSetRegistry.get(Path.of("/tmp/non_existent_wsr_file_" + System.nanoTime()), false, 1000));
+    }
+
+    private static void replace(final Path path, final String content) throws IOException {
+        // the watcher may read the file at any time, so replace it in one step
+        final Path temp = Files.createTempFile(path.getParent(), "wsr_", ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        move(temp, path);
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        // make sure the modification time changes on file systems with coarse timestamps
+        long modified = System.currentTimeMillis();
+        if (Files.exists(target)) {
+            modified = Math.max(modified, Files.getLastModifiedTime(target).toMillis() + 2000L);
+        }
+        Files.setLastModifiedTime(source, FileTime.fromMillis(modified));
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static WordSetRegistry.Entry awaitReload(final WordSetRegistry.Handle handle, final WordSetRegistry.Entry entry)
+            throws InterruptedException {
+        await(() -> handle.get() != entry, "the file is not reloaded");
+        return handle.get();
+    }
+
+    private static void await(final BooleanSupplier condition, final String message) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(message, System.nanoTime() - deadline < 0);
+            Thread.sleep(10L);
+        }
+    }
+}
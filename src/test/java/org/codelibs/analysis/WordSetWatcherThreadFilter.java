@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import com.carrotsearch.randomizedtesting.ThreadFilter;
+
+/**
+ * Ignores the background threads of {@link WordSetRegistry} and the poller thread of its watch service
+ * in thread leak checks. All are process-wide daemons that outlive the tests using them.
+ */
+public class WordSetWatcherThreadFilter implements ThreadFilter {
+
+    @Override
+    public boolean reject(final Thread t) {
+        return WordSetRegistry.WATCHER_THREAD_NAME.equals(t.getName()) || WordSetRegistry.EVENT_THREAD_NAME.equals(t.getName())
+                || "FileSystemWatchService".equals(t.getName());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class WordTrieTest extends LuceneTestCase {
+
+    @Test
+    public void testPrefix() {
+        final WordTrie trie = new WordTrie(new String[] { "ab", "abc", "b", "xyz" }, false);
+        assertTrue(trie.matches("ab"));
+        assertTrue(trie.matches("abd"));
+        assertTrue(trie.matches("bbb"));
+        assertTrue(trie.matches("xyzz"));
+        assertFalse(trie.matches("a"));
+        assertFalse(trie.matches("xy"));
+        assertFalse(trie.matches("cab"));
+        assertFalse(trie.matches(""));
+    }
+
+    @Test
+    public void testSuffix() {
+        final WordTrie trie = new WordTrie(new String[] { "ing", "ed", "s" }, true);
+        assertTrue(trie.matches("testing"));
+        assertTrue(trie.matches("tested"));
+        assertTrue(trie.matches("tests"));
+        assertTrue(trie.matches("ing"));
+        assertFalse(trie.matches("ng"));
+        assertFalse(trie.matches("test"));
+        assertFalse(trie.matches(""));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse(new WordTrie(new String[0], false).matches("a"));
+        assertFalse(new WordTrie(new String[0], true).matches(""));
+        assertTrue(new WordTrie(new String[] { "" }, false).matches("a"));
+        assertTrue(new WordTrie(new String[] { "" }, true).matches(""));
+    }
+
+    @Test
+    public void testSameAsNaive() {
+        final Random random = random();
+        final char[] chars = "abcあい𠮷".toCharArray();
+        for (int i = 0; i < 100; i++) {
+            final String[] words = new String[random.nextInt(50)];
+            for (int j = 0; j < words.length; j++) {
+                words[j] = randomText(random, chars, 1 + random.nextInt(4));
+            }
+            final WordTrie prefix = new WordTrie(words, false);
+            final WordTrie suffix = new WordTrie(words, true);
+            for (int j = 0; j < 100; j++) {
+                final String text = randomText(random, chars, random.nextInt(8));
+                boolean startsWith = false;
+                boolean endsWith = false;
+                for (final String word : words) {
+                    startsWith |= text.startsWith(word);
+                    endsWith |= text.endsWith(word);
+                }
+                assertEquals(text, startsWith, prefix.matches(text));
+                assertEquals(text, endsWith, suffix.matches(text));
+                final char[] buffer = ("xx" + text + "yy").toCharArray();
+                assertEquals(text, startsWith, prefix.matches(buffer, 2, text.length(), false));
+                assertEquals(text, endsWith, suffix.matches(buffer, 2, text.length(), false));
+            }
+        }
+    }
+
+    @Test
+    public void testLowerCase() {
+        final Random random = random();
+        final char[] chars = "aAbBあ\uD801\uDC00\uD801\uDC28".toCharArray();
+        for (int i = 0; i < 100; i++) {
+            final String[] words = new String[random.nextInt(20)];
+            for (int j = 0; j < words.length; j++) {
+                words[j] = randomText(random, chars, 1 + random.nextInt(4)).toLowerCase(Locale.ROOT);
+            }
+            final WordTrie prefix = new WordTrie(words, false);
+            final WordTrie suffix = new WordTrie(words, true);
+            for (int j = 0; j < 100; j++) {
+                final String text = randomText(random, chars, random.nextInt(8));
+                final String lowerCase = text.toLowerCase(Locale.ROOT);
+                final char[] buffer = text.toCharArray();
+                assertEquals(text, prefix.matches(lowerCase), prefix.matches(buffer, 0, buffer.length, true));
+                assertEquals(text, suffix.matches(lowerCase), suffix.matches(buffer, 0, buffer.length, true));
+            }
+        }
+    }
+
+    private static String randomText(final Random random, final char[] chars, final int length) {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            buf.append(chars[random.nextInt(chars.length)]);
+        }
+        return buf.toString();
+    }
+}
@@ -20,13 +20,19 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.CompiledWordSet;
+import org.codelibs.analysis.WordSetWatcherThreadFilter;
 import org.junit.Test;
 
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+
+@ThreadLeakFilters(filters = WordSetWatcherThreadFilter.class)
 public class ReloadableKeywordMarkerFilterTest extends BaseTokenStreamTestCase {
 
     @Test
@@ -93,6 +99,24 @@ public class ReloadableKeywordMarkerFilterTest extends BaseTokenStreamTestCase {
                 new int[] { 3, 7, 11 }, null, null, null, input.length(), new boolean[] { true, true, false }, true);
     }
 
+    @Test
+    public void testCompiledKeywordFile() throws Exception {
+        final Path dictPath = Files.createTempFile("rkmf_compiled_", ".fst");
+        CompiledWordSet.write(List.of("aaa", "bbb"), dictPath, false, false);
+
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new ReloadableKeywordMarkerFilter(tokenizer, dictPath, 500));
+            }
+        };
+
+        String input = "aaa BBB bbb";
+        assertTokenStreamContents(analyzer.tokenStream("dummy", input), new String[] { "aaa", "BBB", "bbb" }, new int[] { 0, 4, 8 },
+                new int[] { 3, 7, 11 }, null, null, null, input.length(), new boolean[] { true, false, true }, true);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testNonExistentFile() throws Exception {
         final Path dictPath = Path.of("/tmp/non_existent_rkmf_file_" + System.nanoTime() + ".txt");
@@ -20,13 +20,19 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.CompiledWordSet;
+import org.codelibs.analysis.WordSetWatcherThreadFilter;
 import org.junit.Test;
 
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+
+@ThreadLeakFilters(filters = WordSetWatcherThreadFilter.class)
 public class ReloadableStopFilterTest extends BaseTokenStreamTestCase {
 
     @Test
@@ -54,6 +60,28 @@ public class ReloadableStopFilterTest extends BaseTokenStreamTestCase {
 
     }
 
+    @Test
+    public void testGeneration() throws Exception {
+        final Path dictPath = Files.createTempFile("rsf_gen_", ".txt");
+        writeFile(dictPath, "aaa");
+
+        final ReloadableStopFilter filter = new ReloadableStopFilter(new WhitespaceTokenizer(), dictPath, true, 100);
+        final ReloadableStopFilter other = new ReloadableStopFilter(new WhitespaceTokenizer(), dictPath, true, 100);
+        final long generation = filter.getGeneration();
+        assertEquals(generation, other.getGeneration());
+
+        Thread.sleep(1000L);
+        writeFile(dictPath, "bbb");
+        Thread.sleep(1000L);
+
+        // the new set is picked up when the filter is reset for the next document
+        assertEquals(generation, filter.getGeneration());
+        filter.reset();
+        assertTrue(filter.getGeneration() > generation);
+        filter.close();
+        other.close();
+    }
+
     @Test
     public void testCaseSensitive() throws Exception {
         final Path dictPath = Files.createTempFile("rsf_cs_", ".txt");
@@ -110,6 +138,29 @@ public class ReloadableStopFilterTest extends BaseTokenStreamTestCase {
         new ReloadableStopFilter(new WhitespaceTokenizer(), dictPath, true, 500);
     }
 
+    @Test
+    public void testCompiledStopFile() throws Exception {
+        final Path dictPath = Files.createTempFile("rsf_compiled_", ".fst");
+        CompiledWordSet.write(List.of("AAA", "bbb"), dictPath, true, false);
+
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new ReloadableStopFilter(tokenizer, dictPath, true, 500));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "aaa BBB ccc", new String[] { "ccc" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompiledStopFileCaseMismatch() throws Exception {
+        final Path dictPath = Files.createTempFile("rsf_compiled_cs_", ".fst");
+        CompiledWordSet.write(List.of("aaa"), dictPath, true, false);
+        new ReloadableStopFilter(new WhitespaceTokenizer(), dictPath, false, 500);
+    }
+
     private void writeFile(Path dictPath, String content) throws IOException {
         try (BufferedWriter writer = Files.newBufferedWriter(dictPath, Charset.forName("UTF-8"))) {
             writer.write(content);
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class ConcatenationRulesTest extends LuceneTestCase {
+
+    @Test
+    public void testMatchesSameAsPatterns() {
+        final String[] regexes = { "平成|昭和", "[0-9]+年", "[0-9]+", "第", "[^0-9]+", "(号|回)", "昭和", "\\d{2}" };
+        final char[] chars = "平成昭和年第号回09あ".toCharArray();
+        final Random random = random();
+        for (int round = 0; round < 20; round++) {
+            final int size = 1 + random.nextInt(100);
+            final Pattern[] targets = new Pattern[size];
+            final Pattern[] followers = new Pattern[size];
+            for (int i = 0; i < size; i++) {
+                targets[i] = Pattern.compile(regexes[random.nextInt(regexes.length)]);
+                followers[i] = Pattern.compile(regexes[random.nextInt(regexes.length)]);
+            }
+            final ConcatenationRules rules = new ConcatenationRules(targets, followers);
+            assertEquals(size, rules.size());
+            final long[] mask = new long[rules.maskLength()];
+            for (int i = 0; i < 200; i++) {
+                final String target = randomText(random, chars);
+                final String follower = randomText(random, chars);
+                boolean anyTarget = false;
+                boolean anyPair = false;
+                for (int j = 0; j < size; j++) {
+                    final boolean isTarget = targets[j].matcher(target).matches();
+                    anyTarget |= isTarget;
+                    anyPair |= isTarget && followers[j].matcher(follower).matches();
+                }
+                assertEquals(target, anyTarget, rules.matchTargets(target.toCharArray(), target.length(), mask));
+                assertEquals(target + " " + follower, anyPair, rules.matchesFollower(follower.toCharArray(), follower.length(), mask));
+            }
+        }
+    }
+
+    private static String randomText(final Random random, final char[] chars) {
+        final StringBuilder buf = new StringBuilder();
+        final int length = random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            buf.append(chars[random.nextInt(chars.length)]);
+        }
+        return buf.toString();
+    }
+
+    @Test
+    public void testInvalidRules() {
+        final Pattern pattern = Pattern.compile("a");
+        expectThrows(IllegalArgumentException.class, () -> new ConcatenationRules(new Pattern[] { pattern }, new Pattern[0]));
+        expectThrows(IllegalArgumentException.class, () -> new ConcatenationRules(new Pattern[0], new Pattern[0]));
+        expectThrows(IllegalArgumentException.class,
+                () -> new ConcatenationRules(new Pattern[] { Pattern.compile("a.") }, new Pattern[] { pattern }));
+    }
+}
@@ -112,4 +112,63 @@ public class IterationMarkCharFilterTest extends BaseTokenStreamTestCase {
         assertTokenStreamContents(createTokeStream(""), new String[0]);
     }
 
+    @Test
+    public void testVoicing() throws IOException {
+        final String unvoicedHiragana = "かきくけこさしすせそたちつてとはひふへほはひふへほ";
+        final String voicedHiragana = "がぎぐげござじずぜぞだぢづでどばびぶべぼぱぴぷぺぽ";
+        final String unvoicedKatakana = "カキクケコサシスセソタチツテトハヒフヘホハヒフヘホ";
+        final String voicedKatakana = "ガギグゲゴザジズゼゾダヂヅデドバビブベボパピプペポ";
+        for (char c = '\u3040'; c <= '\u30ff'; c++) {
+            assertEquals(String.valueOf(c), expectedIteration(c, voicedHiragana, unvoicedHiragana), iterate(c, 'ゝ'));
+            assertEquals(String.valueOf(c), expectedIteration(c, unvoicedHiragana, voicedHiragana), iterate(c, 'ゞ'));
+            assertEquals(String.valueOf(c), expectedIteration(c, voicedKatakana, unvoicedKatakana), iterate(c, 'ヽ'));
+            assertEquals(String.valueOf(c), expectedIteration(c, unvoicedKatakana, voicedKatakana), iterate(c, 'ヾ'));
+        }
+        assertEquals("はば", iterate('は', 'ゞ'));
+        assertEquals("ガガ", iterate('ガ', 'ゝ'));
+        assertEquals("aa", iterate('a', 'ゞ'));
+    }
+
+    private String iterate(final char prev, final char mark) throws IOException {
+        return readAll(new IterationMarkCharFilter(new StringReader(new String(new char[] { prev, mark }))));
+    }
+
+    private String expectedIteration(final char prev, final String from, final String to) {
+        final int index = from.indexOf(prev);
+        return new String(new char[] { prev, index >= 0 ? to.charAt(index) : prev });
+    }
+
+    @Test
+    public void testWindowed() throws IOException {
+        final String text = "々々 時々 明々白々 複々々線 部分々々 学問のすゝめ いすゞ バナヽ カヾ 各〻 ";
+        final String expected = "々々 時時 明明白白 複複複線 部分部分 学問のすすめ いすず バナナ カガ 各各 ";
+        for (int windowSize = 1; windowSize <= text.length() + 1; windowSize++) {
+            assertEquals("windowSize=" + windowSize, expected, readAll(new IterationMarkCharFilter(new StringReader(text), windowSize)));
+        }
+        assertEquals("", readAll(new IterationMarkCharFilter(new StringReader(""), 4)));
+
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append(text);
+        }
+        final String longText = buf.toString();
+        final String longExpected = readAll(new IterationMarkCharFilter(new StringReader(longText)));
+        assertEquals(longExpected, readAll(new IterationMarkCharFilter(new StringReader(longText), 7)));
+        assertEquals(longExpected, readAll(new IterationMarkCharFilter(new StringReader(longText), 1024)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWindowSize() {
+        new IterationMarkCharFilter(new StringReader(""), -1);
+    }
+
+    private String readAll(final Reader reader) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        final char[] temp = new char[3];
+        for (int cnt = reader.read(temp); cnt >= 0; cnt = reader.read(temp)) {
+            buf.append(temp, 0, cnt);
+        }
+        return buf.toString();
+    }
+
 }
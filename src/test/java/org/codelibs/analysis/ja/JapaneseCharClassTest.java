@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.lang.Character.UnicodeBlock;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class JapaneseCharClassTest extends LuceneTestCase {
+
+    @Test
+    public void testSameAsUnicodeBlock() {
+        for (int i = Character.MIN_VALUE; i <= Character.MAX_VALUE; i++) {
+            final char c = (char) i;
+            final UnicodeBlock block = UnicodeBlock.of(c);
+            assertEquals(Integer.toHexString(i),
+                    block == UnicodeBlock.HIRAGANA || block == UnicodeBlock.KATAKANA || block == UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS,
+                    JapaneseCharClass.isKana(c));
+            assertEquals(Integer.toHexString(i), block == UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS, JapaneseCharClass.isKanji(c));
+        }
+    }
+
+    @Test
+    public void testBasics() {
+        assertTrue(JapaneseCharClass.isKana('あ'));
+        assertTrue(JapaneseCharClass.isKana('ア'));
+        assertTrue(JapaneseCharClass.isKana('ㇰ'));
+        assertTrue(JapaneseCharClass.isKana('ー'));
+        assertFalse(JapaneseCharClass.isKana('亜'));
+        assertFalse(JapaneseCharClass.isKana('a'));
+        assertTrue(JapaneseCharClass.isKanji('亜'));
+        assertFalse(JapaneseCharClass.isKanji('あ'));
+        assertFalse(JapaneseCharClass.isKanji('々'));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.apache.lucene.tests.analysis.MockTokenizer;
+import org.junit.Test;
+
+public class JapaneseNormalizationCharFilterTest extends BaseTokenStreamTestCase {
+
+    private TokenStream createTokeStream(final String text) throws IOException {
+        Reader cs = new JapaneseNormalizationCharFilter(new StringReader(text));
+        MockTokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        tokenizer.setReader(cs);
+        return tokenizer;
+    }
+
+    @Test
+    public void testBasics() throws IOException {
+        assertTokenStreamContents(createTokeStream("時々 あ- 学問のすゝめ"), new String[] { "時時", "あー", "学問のすすめ" }, new int[] { 0, 3, 6 },
+                new int[] { 2, 5, 12 });
+        assertTokenStreamContents(createTokeStream("部分々々"), new String[] { "部分部分" }, new int[] { 0 }, new int[] { 4 });
+        assertTokenStreamContents(createTokeStream("亜-"), new String[] { "亜-" }, new int[] { 0 }, new int[] { 2 });
+        assertTokenStreamContents(createTokeStream("あ--"), new String[] { "あー-" }, new int[] { 0 }, new int[] { 3 });
+        // the prolonged sound mark is repeated by the iteration mark
+        assertTokenStreamContents(createTokeStream("ア-ヽ"), new String[] { "アーー" }, new int[] { 0 }, new int[] { 3 });
+        assertTokenStreamContents(createTokeStream("々々"), new String[] { "々々" }, new int[] { 0 }, new int[] { 2 });
+        assertTokenStreamContents(createTokeStream(""), new String[0]);
+    }
+
+    @Test
+    public void testSameAsChain() throws IOException {
+        final char[] chars = "あかがアカガヽヾゝゞ々〻時分亜-－―ー ㇰx".toCharArray();
+        final Random random = random();
+        for (int i = 0; i < 200; i++) {
+            final StringBuilder buf = new StringBuilder();
+            final int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                buf.append(chars[random.nextInt(chars.length)]);
+            }
+            final String text = buf.toString();
+            final String expected = readAll(new IterationMarkCharFilter(new ProlongedSoundMarkCharFilter(new StringReader(text))));
+            assertEquals(text, expected, readAll(new JapaneseNormalizationCharFilter(new StringReader(text))));
+            assertEquals(text, expected, readAll(new JapaneseNormalizationCharFilter(new StringReader(text), 1 + random.nextInt(8))));
+        }
+    }
+
+    @Test
+    public void testCharRules() throws IOException {
+        final JapaneseNormalizationCharFilter.CharRule fullWidthDigit = (c, prev) -> '０' <= c && c <= '９' ? (char) (c - '０' + '0') : c;
+        final JapaneseNormalizationCharFilter.CharRule kanjiRepeat = (c, prev) -> c == '〃' ? '々' : c;
+        assertEquals("１２3 あー 時時",
+                readAll(new JapaneseNormalizationCharFilter(new StringReader("１２3 あ- 時〃"), 'ー', 0, kanjiRepeat)));
+        assertEquals("123 あー 時時",
+                readAll(new JapaneseNormalizationCharFilter(new StringReader("１２3 あ- 時〃"), 'ー', 2, fullWidthDigit, kanjiRepeat)));
+    }
+
+    private String readAll(final Reader reader) throws IOException {
+        try (reader) {
+            final StringBuilder buf = new StringBuilder();
+            final char[] temp = new char[3];
+            for (int cnt = reader.read(temp); cnt >= 0; cnt = reader.read(temp)) {
+                buf.append(temp, 0, cnt);
+            }
+            return buf.toString();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.ja.JapaneseTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.junit.Test;
+
+public class KanjiNumberCacheTest extends BaseTokenStreamTestCase {
+
+    private Analyzer createAnalyzer(final KanjiNumberCache cache) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new KanjiNumberFilter(tokenizer, cache));
+            }
+        };
+    }
+
+    private static List<String> analyze(final Analyzer analyzer, final String text) throws IOException {
+        final List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("", text)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(termAtt.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    @Test
+    public void testHitsAndMisses() throws IOException {
+        final KanjiNumberCache cache = new KanjiNumberCache(100);
+        final Analyzer analyzer = createAnalyzer(cache);
+
+        assertEquals(List.of("100", "円", "2000", "円", "100", "円"), analyze(analyzer, "百 円 二千 円 百 円"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+
+        // shared with the filters of another analyzer
+        assertEquals(List.of("2000", "円", "abc"), analyze(createAnalyzer(cache), "二 千 円 abc"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(List.of("100"), analyze(analyzer, "百"));
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testMalformedAndDecimalNumbers() throws IOException {
+        final KanjiNumberCache cache = new KanjiNumberCache(100);
+        final Analyzer analyzer = createAnalyzer(cache);
+        for (int i = 0; i < 2; i++) {
+            assertAnalyzesTo(analyzer, "3 . 2千 円 1 . 5 円 1 . . 5 円 九千京", new String[] { "3200", "円", "1.5", "円", "1..5", "円", "90000000000000000000" });
+        }
+    }
+
+    @Test
+    public void testBounded() throws IOException {
+        final KanjiNumberCache cache = new KanjiNumberCache(64);
+        final Analyzer analyzer = createAnalyzer(cache);
+        final int count = 10000;
+        for (int i = 0; i < count; i++) {
+            final String number = Integer.toString(1000000 + i);
+            assertEquals(List.of("100", "円", number), analyze(analyzer, "百 円 " + number));
+            assertTrue(cache.size() <= cache.getMaxSize());
+        }
+        // a number that is read again before the CLOCK hand comes back is never evicted
+        assertEquals(count - 1, cache.getHitCount());
+        assertEquals(count + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLongNumbersAreNotCached() throws IOException {
+        final KanjiNumberCache cache = new KanjiNumberCache(10);
+        final String number = "1".repeat(KanjiNumberCache.MAX_KEY_LENGTH + 1);
+        assertAnalyzesTo(createAnalyzer(cache), number, new String[] { number });
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidSize() {
+        expectThrows(IllegalArgumentException.class, () -> new KanjiNumberCache(0));
+    }
+
+    @Test
+    public void testRandomStrings() throws Exception {
+        final KanjiNumberCache cache = new KanjiNumberCache(random().nextInt(100) + 1);
+        final Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new JapaneseTokenizer(newAttributeFactory(), null, false, JapaneseTokenizer.Mode.SEARCH);
+                return new TokenStreamComponents(tokenizer, new KanjiNumberFilter(tokenizer, cache));
+            }
+        };
+        checkRandomData(random(), analyzer, 500 * RANDOM_MULTIPLIER, 128);
+        analyzer.close();
+    }
+}
@@ -23,9 +23,11 @@ import java.io.Writer;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.analysis.ja.JapaneseTokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.AllocationMeter;
 import org.junit.Test;
 
 public class KanjiNumberFilterTest extends BaseTokenStreamTestCase {
@@ -232,7 +234,7 @@ public class KanjiNumberFilterTest extends BaseTokenStreamTestCase {
 
     @Test
     public void testAllKanjiNumerals() throws IOException {
-        // Test that all kanji numerals (〇-九) are correctly mapped in HashMap
+        // Test that all kanji numerals (〇-九) are correctly mapped
         assertAnalyzesTo(analyzer, "〇", new String[] { "0" });
         assertAnalyzesTo(analyzer, "一", new String[] { "1" });
         assertAnalyzesTo(analyzer, "二", new String[] { "2" });
@@ -259,7 +261,7 @@ public class KanjiNumberFilterTest extends BaseTokenStreamTestCase {
 
     @Test
     public void testAllExponents() throws IOException {
-        // Test that all exponents (十,百,千,万,億,兆,京,垓) are correctly mapped in HashMap
+        // Test that all exponents (十,百,千,万,億,兆,京,垓) are correctly mapped
         assertAnalyzesTo(analyzer, "十", new String[] { "10" });
         assertAnalyzesTo(analyzer, "百", new String[] { "100" });
         assertAnalyzesTo(analyzer, "千", new String[] { "1000" });
@@ -270,4 +272,54 @@ public class KanjiNumberFilterTest extends BaseTokenStreamTestCase {
         assertAnalyzesTo(analyzer, "垓", new String[] { "100000000000000000000" });
     }
 
+    @Test
+    public void testCharClasses() throws IOException {
+        final KanjiNumberFilter filter = new KanjiNumberFilter(new WhitespaceTokenizer());
+        final String numerals = "0123456789０１２３４５６７８９〇一二三四五六七八九十百千万億兆京垓";
+        final String punctuation = ".．,，";
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            assertEquals(Integer.toHexString(c), numerals.indexOf(c) >= 0, filter.isNumeral((char) c));
+            assertEquals(Integer.toHexString(c), punctuation.indexOf(c) >= 0, filter.isNumeralPunctuation((char) c));
+            assertEquals(Integer.toHexString(c), numerals.indexOf(c) >= 0 && numerals.indexOf(c) < 20, filter.isArabicNumeral((char) c));
+        }
+    }
+
+    @Test
+    public void testLongOverflow() throws IOException {
+        final KanjiNumberFilter filter = new KanjiNumberFilter(new WhitespaceTokenizer());
+        assertEquals("9223372036854775807", filter.normalizeNumber("9223372036854775807"));
+        assertEquals("9223372036854775808", filter.normalizeNumber("9223372036854775808"));
+        assertEquals("9000000000000000000", filter.normalizeNumber("九百京"));
+        assertEquals("90000000000000000000", filter.normalizeNumber("九千京"));
+        assertEquals("9223372036854775807", filter.normalizeNumber("九百二十二京三千三百七十二兆三百六十八億五千四百七十七万五千八百七"));
+        assertEquals("9223372036854775808", filter.normalizeNumber("九百二十二京三千三百七十二兆三百六十八億五千四百七十七万五千八百八"));
+        assertEquals("100000000000000000000", filter.normalizeNumber("垓"));
+    }
+
+    @Test
+    public void testNormalizeNumber() throws IOException {
+        final KanjiNumberFilter filter = new KanjiNumberFilter(new WhitespaceTokenizer());
+        assertEquals("23", filter.normalizeNumber("二十三"));
+        assertEquals("1000", filter.normalizeNumber("1,000"));
+        assertEquals("0", filter.normalizeNumber("〇万"));
+        assertEquals("3200", filter.normalizeNumber("3.2千"));
+        // fractions and malformed numbers are returned as is
+        assertEquals("1.5", filter.normalizeNumber("1.5"));
+        assertEquals("1..5", filter.normalizeNumber("1..5"));
+        assertEquals(",", filter.normalizeNumber(","));
+        assertEquals("円", filter.normalizeNumber("円"));
+        assertEquals("", filter.normalizeNumber(""));
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        // tokens that are not numbers pass through without allocating
+        final String[] text = AllocationMeter.repeat(1000, "東京", "で", "会議", "を", "Lucene", "の");
+        assertEquals(0.0, AllocationMeter.bytesPerToken(text, KanjiNumberFilter::new), 1.0);
+        // numbers cost the captured states of the lookahead, but no Strings
+        final String[] numbers = AllocationMeter.repeat(1000, "二千", "五百", "円", "10", "人", "の", "百", "一万", "３");
+        final double numberBytes = AllocationMeter.bytesPerToken(numbers, KanjiNumberFilter::new);
+        assertTrue(numberBytes + " bytes per token", numberBytes <= 128.0);
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.junit.Test;
+
+public class KanjiNumberNormalizerTest extends LuceneTestCase {
+
+    private final KanjiNumberNormalizer normalizer = new KanjiNumberNormalizer();
+
+    @Test
+    public void testNormalize() {
+        assertEquals("102500", normalizer.normalize("十万二千五百"));
+        assertEquals("3200", normalizer.normalize(new StringBuilder("３．２千")));
+        assertEquals("4647", normalizer.normalize("4，647"));
+        assertEquals("100000000000000000000", normalizer.normalize("垓"));
+        assertEquals("1.5", normalizer.normalize("1.5"));
+        assertEquals("円", normalizer.normalize("円"));
+        assertEquals("", normalizer.normalize(""));
+    }
+
+    @Test
+    public void testNormalizeToBuffer() {
+        final char[] output = new char[10];
+        assertEquals(4, normalizer.normalize("二千二十五", output, 3));
+        assertEquals("2025", new String(output, 3, 4));
+
+        // written only when it fits
+        final char[] small = new char[3];
+        assertEquals(4, normalizer.normalize("二千二十五", small, 0));
+        assertEquals("\0\0\0", new String(small));
+        assertEquals(21, normalizer.normalize("垓", output, 0));
+
+        assertEquals(3, normalizer.normalize("1.5", output, 0));
+        assertEquals("1.5", new String(output, 0, 3));
+        assertEquals(1, normalizer.normalize("円", output, 0));
+        assertEquals("円", new String(output, 0, 1));
+    }
+
+    @Test
+    public void testNormalizeCharArray() {
+        final char[] input = "xx二千二十五円".toCharArray();
+        final char[] output = new char[10];
+        assertEquals(4, normalizer.normalize(input, 2, 5, output, 0));
+        assertEquals("2025", new String(output, 0, 4));
+
+        // in place
+        assertEquals(4, normalizer.normalize(input, 2, 5, input, 2));
+        assertEquals("xx2025五円", new String(input));
+
+        expectThrows(IndexOutOfBoundsException.class, () -> normalizer.normalize(input, 5, 10, output, 0));
+    }
+
+    @Test
+    public void testNormalizeBatch() {
+        final CharSequence[] numbers = { "百", "二千", "1.5", "三万", "円" };
+        final char[] output = new char[9];
+        final int[] ends = new int[numbers.length];
+
+        // 100 + 2000 + 1.5 fill 10 characters, so the batch stops before 1.5
+        assertEquals(2, normalizer.normalize(numbers, 0, output, ends));
+        assertEquals("1002000", new String(output, 0, ends[1]));
+        assertEquals(3, ends[0]);
+
+        assertEquals(numbers.length, normalizer.normalize(numbers, 2, output, ends));
+        assertEquals("1.530000円", new String(output, 0, ends[2]));
+        assertEquals(3, ends[0]);
+        assertEquals(8, ends[1]);
+
+        // limited by the ends array
+        assertEquals(1, normalizer.normalize(numbers, 0, output, new int[1]));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final String[] numbers = { "十万二千五百", "３．２千", "九千京", "二十三", "1,000", "円" };
+        final String[] expected = { "102500", "3200", "90000000000000000000", "23", "1000", "円" };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    final char[] output = new char[32];
+                    for (int i = 0; i < 10000; i++) {
+                        final int index = i % numbers.length;
+                        final int length = normalizer.normalize(numbers[index], output, 0);
+                        assertEquals(expected[index], new String(output, 0, length));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.AllocationMeter;
+import org.junit.Test;
+
+public class MultiPatternConcatenationFilterTest extends BaseTokenStreamTestCase {
+
+    private static ConcatenationRules rules() {
+        return new ConcatenationRules(new Pattern[] { Pattern.compile("平成|昭和"), Pattern.compile("第"), Pattern.compile("第[0-9]+") },
+                new Pattern[] { Pattern.compile("[0-9]+年"), Pattern.compile("[0-9]+"), Pattern.compile("号|回") });
+    }
+
+    private static Analyzer analyzer(final ConcatenationRules rules) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new MultiPatternConcatenationFilter(tokenizer, rules));
+            }
+        };
+    }
+
+    @Test
+    public void testBasic() throws IOException {
+        final Analyzer analyzer = analyzer(rules());
+
+        // 第3 is a target of the third rule once the second rule has concatenated it
+        assertAnalyzesTo(analyzer, "平成 10年 第 3 回 大会", //
+                new String[] { "平成10年", "第3回", "大会" }, //
+                new int[] { 0, 7, 13 }, //
+                new int[] { 6, 12, 15 }, //
+                new int[] { 1, 1, 1 });
+        // a follower is only concatenated to a target of the same rule
+        assertAnalyzesTo(analyzer, "平成 3 第 10年", //
+                new String[] { "平成", "3", "第", "10年" }, //
+                new int[] { 1, 1, 1, 1 });
+        assertAnalyzesTo(analyzer, "", new String[0]);
+    }
+
+    @Test
+    public void testSameAsSingleRule() throws IOException {
+        final Pattern pattern1 = Pattern.compile("平成|昭和");
+        final Pattern pattern2 = Pattern.compile("[0-9]+年");
+        final Analyzer single = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new PatternConcatenationFilter(tokenizer, pattern1, pattern2));
+            }
+        };
+        final Analyzer multi = analyzer(new ConcatenationRules(new Pattern[] { pattern1 }, new Pattern[] { pattern2 }));
+        final String[] words = { "平成", "昭和", "10年", "元年", "5", "年" };
+        for (int i = 0; i < 100; i++) {
+            final StringBuilder buf = new StringBuilder();
+            final int length = random().nextInt(10);
+            for (int j = 0; j < length; j++) {
+                buf.append(words[random().nextInt(words.length)]).append(' ');
+            }
+            final String text = buf.toString();
+            assertEquals(text, analyze(single, text), analyze(multi, text));
+        }
+    }
+
+    private static String analyze(final Analyzer analyzer, final String text) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        try (TokenStream stream = analyzer.tokenStream("f", text)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                buf.append(termAtt).append('|');
+            }
+            stream.end();
+        }
+        return buf.toString();
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        final ConcatenationRules rules = rules();
+        final String[] text = AllocationMeter.repeat(1000, "平成", "10年", "の", "第", "3", "回", "会議");
+        assertEquals(0.0, AllocationMeter.bytesPerToken(text, in -> new MultiPatternConcatenationFilter(in, rules)), 1.0);
+    }
+}
@@ -16,14 +16,19 @@
 package org.codelibs.analysis.ja;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.AllocationMeter;
 import org.junit.Test;
 
 public class NumberConcatenationFilterTest extends BaseTokenStreamTestCase {
@@ -140,4 +145,136 @@ public class NumberConcatenationFilterTest extends BaseTokenStreamTestCase {
                 new int[] { 1 });
     }
 
+    @Test
+    public void testBufferedTokenAttributes() throws IOException {
+        final CharArraySet words = new CharArraySet(List.of("円"), false);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new StandardTokenizer();
+                return new TokenStreamComponents(tokenizer, new NumberConcatenationFilter(tokenizer, words));
+            }
+        };
+
+        // the concatenated token keeps the attributes of the number, and a pushed back token keeps its own
+        assertAnalyzesTo(analyzer, "10 円 5 の 7", //
+                new String[] { "10円", "5", "の", "7" }, //
+                new int[] { 0, 5, 7, 9 }, //
+                new int[] { 4, 6, 8, 10 }, //
+                new String[] { "<NUM>", "<NUM>", "<HIRAGANA>", "<NUM>" }, //
+                new int[] { 1, 1, 1, 1 });
+    }
+
+    @Test
+    public void testMaxTokenCount() throws IOException {
+        final CharArraySet words = new CharArraySet(List.of("0"), false);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                final NumberConcatenationFilter filter = new NumberConcatenationFilter(tokenizer, words);
+                filter.setMaxTokenCount(3);
+                return new TokenStreamComponents(tokenizer, filter);
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "1 0 0 0 0 2 0", //
+                new String[] { "100", "00", "20" }, //
+                new int[] { 0, 6, 10 }, //
+                new int[] { 5, 9, 13 });
+    }
+
+    @Test
+    public void testMaxTokenLength() throws IOException {
+        final CharArraySet words = new CharArraySet(List.of("円", "000"), false);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                final NumberConcatenationFilter filter = new NumberConcatenationFilter(tokenizer, words);
+                filter.setMaxTokenLength(6);
+                return new TokenStreamComponents(tokenizer, filter);
+            }
+        };
+
+        // a token that is already too long is returned as it is
+        assertAnalyzesTo(analyzer, "12 000 000 円 1234567 円", //
+                new String[] { "12000", "000円", "1234567", "円" }, //
+                new int[] { 0, 7, 13, 21 }, //
+                new int[] { 6, 12, 20, 22 });
+    }
+
+    @Test
+    public void testLongRun() throws IOException {
+        final CharArraySet words = new CharArraySet(List.of("0"), false);
+        final StringBuilder buf = new StringBuilder("1");
+        for (int i = 0; i < 20000; i++) {
+            buf.append(" 0");
+        }
+        // the whole run is concatenated without overflowing the stack
+        try (TokenStream stream = new NumberConcatenationFilter(whitespace(buf.toString()), words)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            assertTrue(stream.incrementToken());
+            assertEquals(20001, termAtt.length());
+            assertFalse(stream.incrementToken());
+            stream.end();
+        }
+    }
+
+    @Test
+    public void testLongRunWithLimit() throws IOException {
+        final CharArraySet words = new CharArraySet(List.of("0"), false);
+        final StringBuilder buf = new StringBuilder("1");
+        for (int i = 0; i < 100000; i++) {
+            buf.append(" 0");
+        }
+        try (NumberConcatenationFilter stream = new NumberConcatenationFilter(whitespace(buf.toString()), words)) {
+            stream.setMaxTokenCount(64);
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            int count = 0;
+            int length = 0;
+            while (stream.incrementToken()) {
+                assertTrue(termAtt.length() <= 64);
+                count++;
+                length += termAtt.length();
+            }
+            stream.end();
+            assertEquals(100001, length);
+            assertEquals((100001 + 63) / 64, count);
+        }
+    }
+
+    @Test
+    public void testLimitValidation() {
+        final NumberConcatenationFilter filter = new NumberConcatenationFilter(new WhitespaceTokenizer(), CharArraySet.EMPTY_SET);
+        assertEquals(NumberConcatenationFilter.DEFAULT_MAX_TOKEN_LENGTH, filter.getMaxTokenLength());
+        assertEquals(NumberConcatenationFilter.DEFAULT_MAX_TOKEN_COUNT, filter.getMaxTokenCount());
+        expectThrows(IllegalArgumentException.class, () -> filter.setMaxTokenLength(0));
+        expectThrows(IllegalArgumentException.class, () -> filter.setMaxTokenLength(NumberConcatenationFilter.MAX_TOKEN_LENGTH_LIMIT + 1));
+        expectThrows(IllegalArgumentException.class, () -> filter.setMaxTokenCount(0));
+        filter.setMaxTokenLength(1);
+        filter.setMaxTokenCount(1);
+        assertEquals(1, filter.getMaxTokenLength());
+        assertEquals(1, filter.getMaxTokenCount());
+    }
+
+    private static Tokenizer whitespace(final String text) {
+        final Tokenizer tokenizer = new WhitespaceTokenizer();
+        tokenizer.setReader(new StringReader(text));
+        return tokenizer;
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        final CharArraySet words = new CharArraySet(List.of("円", "人"), false);
+        // tokens that are not numbers pass through without allocating
+        final String[] text = AllocationMeter.repeat(1000, "東京", "で", "会議", "を", "Lucene", "の");
+        assertEquals(0.0, AllocationMeter.bytesPerToken(text, in -> new NumberConcatenationFilter(in, words)), 1.0);
+        // lookahead after a number copies into recycled snapshots
+        final String[] numbers = AllocationMeter.repeat(1000, "10", "円", "の", "3", "人", "2025", "年");
+        assertEquals(0.0, AllocationMeter.bytesPerToken(numbers, in -> new NumberConcatenationFilter(in, words)), 1.0);
+    }
 }
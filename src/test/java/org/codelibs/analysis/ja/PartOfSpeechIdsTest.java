@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2025 CodeLibs Project and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.codelibs.analysis.ja;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.lucene.tests.util.LuceneTestCase;
+import org.codelibs.analysis.ja.PosConcatenationFilter.PartOfSpeechIdSupplier;
+import org.junit.Test;
+
+public class PartOfSpeechIdsTest extends LuceneTestCase {
+
+    @Test
+    public void testIdOf() {
+        final PartOfSpeechIds ids = new PartOfSpeechIds();
+        assertEquals(0, ids.idOf("名詞-一般"));
+        assertEquals(1, ids.idOf("助詞-連体化"));
+        assertEquals(0, ids.idOf(new String("名詞-一般")));
+        assertEquals(2, ids.size());
+
+        final BitSet bits = ids.toBitSet(List.of("助詞-連体化", "名詞-サ変接続"));
+        assertFalse(bits.get(0));
+        assertTrue(bits.get(1));
+        assertTrue(bits.get(2));
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    public void testSupplier() {
+        final PartOfSpeechIds ids = new PartOfSpeechIds();
+        final String[] current = new String[1];
+        final PartOfSpeechIdSupplier supplier = ids.supplier(() -> current[0]);
+        assertEquals(-1, supplier.get());
+        current[0] = "名詞-一般";
+        assertEquals(0, supplier.get());
+        assertEquals(0, supplier.get());
+        // equal tags in other instances get the same ID
+        current[0] = new String("名詞-一般");
+        assertEquals(0, supplier.get());
+        for (int i = 0; i < 1000; i++) {
+            current[0] = "tag" + i;
+            assertEquals(i + 1, supplier.get());
+        }
+        current[0] = "tag5";
+        assertEquals(6, supplier.get());
+    }
+
+    @Test
+    public void testCacheSize() {
+        final PartOfSpeechIds ids = new PartOfSpeechIds();
+        expectThrows(IllegalArgumentException.class, () -> ids.supplier(() -> "名詞-一般", 0));
+        final String[] tags = new String[3000];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = "tag" + i;
+        }
+        final String[] current = new String[1];
+        // a cache much smaller than the vocabulary grows with it
+        final PartOfSpeechIdSupplier supplier = ids.supplier(() -> current[0], 1);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < tags.length; i++) {
+                current[0] = tags[i];
+                assertEquals(i, supplier.get());
+            }
+        }
+        // equal tags in other instances still get the same ID
+        current[0] = new String(tags[42]);
+        assertEquals(42, supplier.get());
+        assertEquals(tags.length, ids.size());
+
+        // a supplier created later starts with room for the known tags
+        final PartOfSpeechIdSupplier other = ids.supplier(() -> current[0], 1);
+        current[0] = tags[2999];
+        assertEquals(2999, other.get());
+    }
+}
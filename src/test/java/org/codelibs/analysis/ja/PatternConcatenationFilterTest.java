@@ -16,12 +16,15 @@
 package org.codelibs.analysis.ja;
 
 import java.io.IOException;
+import java.util.Random;
 import java.util.regex.Pattern;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.codelibs.analysis.AllocationMeter;
 import org.junit.Test;
 
 public class PatternConcatenationFilterTest extends BaseTokenStreamTestCase {
@@ -103,4 +106,64 @@ public class PatternConcatenationFilterTest extends BaseTokenStreamTestCase {
         assertAnalyzesTo(analyzer, "", new String[0]);
     }
 
+    @Test
+    public void testCompiledPatterns() throws IOException {
+        final CharacterRunAutomaton automaton1 = PatternConcatenationFilter.compile(Pattern.compile("平成|昭和"));
+        final CharacterRunAutomaton automaton2 = PatternConcatenationFilter.compile(Pattern.compile("[0-9]+年"));
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new PatternConcatenationFilter(tokenizer, automaton1, automaton2));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "aaa 昭和 56年 bbb 平成 元年", //
+                new String[] { "aaa", "昭和56年", "bbb", "平成", "元年" }, //
+                new int[] { 0, 4, 11, 15, 18 }, //
+                new int[] { 3, 10, 14, 17, 20 });
+    }
+
+    @Test
+    public void testCompileMatchesPattern() {
+        final String[] regexes = { "平成|昭和", "[0-9]+年", "\\d{1,3}(,\\d{3})*", "[^ぁ-ん]+", "(第)?[0-9０-９]+[号回]?", "\\w*\\W\\+", "[-.$^a]x*" };
+        final char[] chars = "平成昭和年第号回ぁんか0159０９,+.$^-aZ_x 𠮷".toCharArray();
+        final Random random = random();
+        for (final String regex : regexes) {
+            final Pattern pattern = Pattern.compile(regex);
+            final CharacterRunAutomaton automaton = PatternConcatenationFilter.compile(pattern);
+            for (int i = 0; i < 2000; i++) {
+                final StringBuilder buf = new StringBuilder();
+                final int length = random.nextInt(8);
+                for (int j = 0; j < length; j++) {
+                    buf.append(chars[random.nextInt(chars.length)]);
+                }
+                final String text = buf.toString();
+                assertEquals(regex + " on " + text, pattern.matcher(text).matches(), automaton.run(text));
+            }
+        }
+    }
+
+    @Test
+    public void testCompileUnsupported() {
+        for (final String regex : new String[] { "a.b", "^a", "a$", "\"a\"", "(?i)a", "(?:a)", "a*?", "a++", "a{2}?", "[a-z&&[^e]]",
+                "[a[b]]", "[a-]", "\\s", "\\p{L}", "\\u3042", "\\1" }) {
+            expectThrows(IllegalArgumentException.class, () -> PatternConcatenationFilter.compile(Pattern.compile(regex)));
+        }
+        expectThrows(IllegalArgumentException.class,
+                () -> PatternConcatenationFilter.compile(Pattern.compile("a", Pattern.CASE_INSENSITIVE)));
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        final Pattern pattern1 = Pattern.compile("平成|昭和");
+        final Pattern pattern2 = Pattern.compile("[0-9]+年");
+        final String[] text = AllocationMeter.repeat(1000, "平成", "10年", "の", "昭和", "元年", "会議");
+        assertEquals(0.0, AllocationMeter.bytesPerToken(text, in -> new PatternConcatenationFilter(in, pattern1, pattern2)), 1.0);
+        final CharacterRunAutomaton automaton1 = PatternConcatenationFilter.compile(pattern1);
+        final CharacterRunAutomaton automaton2 = PatternConcatenationFilter.compile(pattern2);
+        assertEquals(0.0, AllocationMeter.bytesPerToken(text, in -> new PatternConcatenationFilter(in, automaton1, automaton2)), 1.0);
+    }
+
 }
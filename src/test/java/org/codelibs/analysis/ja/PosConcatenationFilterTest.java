@@ -16,6 +16,7 @@
 package org.codelibs.analysis.ja;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -111,4 +112,48 @@ public class PosConcatenationFilterTest extends BaseTokenStreamTestCase {
         assertAnalyzesTo(analyzer, "", new String[0]);
     }
 
+    @Test
+    public void testPosTagIds() throws IOException {
+        final PartOfSpeechIds ids = new PartOfSpeechIds();
+        final BitSet posTagIds = ids.toBitSet(Set.of("名詞-副詞可能", "名詞-形容動詞語幹", "名詞-サ変接続", "名詞-一般", "名詞-接尾-一般"));
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new JapaneseTokenizer(null, false, JapaneseTokenizer.Mode.SEARCH);
+                final PartOfSpeechAttribute posAtt = tokenizer.addAttribute(PartOfSpeechAttribute.class);
+                return new TokenStreamComponents(tokenizer,
+                        new PosConcatenationFilter(tokenizer, posTagIds, ids.supplier(posAtt::getPartOfSpeech)));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "歯科医院の歯科衛生士", //
+                new String[] { "歯科医院", "の", "歯科衛生士" }, //
+                new int[] { 0, 4, 5 }, //
+                new int[] { 4, 5, 10 }, //
+                new int[] { 1, 1, 1 });
+
+        assertAnalyzesTo(analyzer, "明日は詳細設計です。", //
+                new String[] { "明日", "は", "詳細設計", "です", "。" }, //
+                new int[] { 0, 2, 3, 7, 9 }, //
+                new int[] { 2, 3, 7, 9, 10 }, //
+                new int[] { 1, 1, 1, 1, 1 });
+
+        assertAnalyzesTo(analyzer, "", new String[0]);
+    }
+
+    @Test
+    public void testNoPosTagId() throws IOException {
+        final BitSet posTagIds = new BitSet();
+        posTagIds.set(0);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new JapaneseTokenizer(null, false, JapaneseTokenizer.Mode.SEARCH);
+                return new TokenStreamComponents(tokenizer, new PosConcatenationFilter(tokenizer, posTagIds, () -> -1));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "歯科医院の歯科衛生士", //
+                new String[] { "歯科", "医院", "の", "歯科", "衛生", "士" });
+    }
 }
@@ -71,6 +71,26 @@ public class ProlongedSoundMarkCharFilterTest extends BaseTokenStreamTestCase {
         assertTokenStreamContents(createTokeStream("", "\u30fc"), new String[0]);
     }
 
+    @Test
+    public void testWindowed() throws IOException {
+        final String text = "あ- ア\uff0d 亜- --- あ-- ㇰ\u2015 カ\u30fc ";
+        final String expected = "あ\u30fc ア\u30fc 亜- --- あ\u30fc- ㇰ\u30fc カ\u30fc ";
+        for (int windowSize = 1; windowSize <= text.length() + 1; windowSize++) {
+            assertEquals("windowSize=" + windowSize, expected,
+                    readAll(new ProlongedSoundMarkCharFilter(new StringReader(text), '\u30fc', windowSize)));
+        }
+        assertEquals("", readAll(new ProlongedSoundMarkCharFilter(new StringReader(""), '\u30fc', 4)));
+    }
+
+    private String readAll(final Reader reader) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        final char[] temp = new char[3];
+        for (int cnt = reader.read(temp); cnt >= 0; cnt = reader.read(temp)) {
+            buf.append(temp, 0, cnt);
+        }
+        return buf.toString();
+    }
+
     @Test
     public void testBasics() throws IOException {
         String[] psms = new String[] { "\u002d", "\uff0d", "\u2010", "\u2011", "\u2012", "\u2013", "\u2014", "\u2015", "\u207b", "\u208b",
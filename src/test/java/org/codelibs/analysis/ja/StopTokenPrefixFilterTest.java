@@ -16,11 +16,16 @@
 package org.codelibs.analysis.ja;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.AllocationMeter;
+import org.codelibs.analysis.CompiledWordSet;
 import org.junit.Test;
 
 public class StopTokenPrefixFilterTest extends BaseTokenStreamTestCase {
@@ -148,4 +153,65 @@ public class StopTokenPrefixFilterTest extends BaseTokenStreamTestCase {
         assertAnalyzesTo(analyzer, "", new String[0]);
     }
 
+    @Test
+    public void testContextualLowerCase() throws IOException {
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenPrefixFilter(tokenizer, new String[] { "\u0130" }, true));
+            }
+        };
+
+        // lowercased as String#toLowerCase(Locale.ROOT) does
+        assertAnalyzesTo(analyzer, "\u0130x ix i\u0307x", new String[] { "ix" });
+    }
+
+    @Test
+    public void testOverriddenAccept() throws IOException {
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenPrefixFilter(tokenizer, new String[] { "B", "dd" }, true) {
+                    @Override
+                    protected boolean accept(final String text, final String word) {
+                        return text.equals(word);
+                    }
+                });
+            }
+        };
+
+        // the subclass matches whole tokens only
+        assertAnalyzesTo(analyzer, "b bbb Dd ddd", new String[] { "bbb", "ddd" });
+    }
+
+    @Test
+    public void testCompiledWords() throws IOException {
+        final Path path = Files.createTempFile("stf_", ".fst");
+        CompiledWordSet.write(List.of("B", "dd"), path, true, false);
+        final CompiledWordSet words = CompiledWordSet.open(path);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenPrefixFilter(tokenizer, words));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "aaa bbb ccc ddd Dda", new String[] { "aaa", "ccc" });
+
+        final Path otherPath = Files.createTempFile("stf_", ".fst");
+        CompiledWordSet.write(List.of("B", "dd"), otherPath, true, true);
+        expectThrows(IllegalArgumentException.class, () -> new StopTokenPrefixFilter(new WhitespaceTokenizer(), CompiledWordSet.open(otherPath)));
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        final String[] terms = AllocationMeter.repeat(1000, "東京", "で", "Lucene", "データ", "の");
+        final String[] words = { "東", "デ", "l" };
+        assertEquals(0.0, AllocationMeter.bytesPerToken(terms, in -> new StopTokenPrefixFilter(in, words, false)), 1.0);
+        assertEquals(0.0, AllocationMeter.bytesPerToken(terms, in -> new StopTokenPrefixFilter(in, words, true)), 1.0);
+    }
 }
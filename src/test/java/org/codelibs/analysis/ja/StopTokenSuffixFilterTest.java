@@ -16,11 +16,16 @@
 package org.codelibs.analysis.ja;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.core.WhitespaceTokenizer;
 import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.codelibs.analysis.AllocationMeter;
+import org.codelibs.analysis.CompiledWordSet;
 import org.junit.Test;
 
 public class StopTokenSuffixFilterTest extends BaseTokenStreamTestCase {
@@ -147,4 +152,65 @@ public class StopTokenSuffixFilterTest extends BaseTokenStreamTestCase {
         assertAnalyzesTo(analyzer, "", new String[0]);
     }
 
+    @Test
+    public void testContextualLowerCase() throws IOException {
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenSuffixFilter(tokenizer, new String[] { "\u03C2" }, true));
+            }
+        };
+
+        // lowercased as String#toLowerCase(Locale.ROOT) does
+        assertAnalyzesTo(analyzer, "\u0391\u03A3 \u0391\u03A3\u0391 \u03B1\u03C2", new String[] { "\u0391\u03A3\u0391" });
+    }
+
+    @Test
+    public void testOverriddenAccept() throws IOException {
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenSuffixFilter(tokenizer, new String[] { "B", "dd" }, true) {
+                    @Override
+                    protected boolean accept(final String text, final String word) {
+                        return text.equals(word);
+                    }
+                });
+            }
+        };
+
+        // the subclass matches whole tokens only
+        assertAnalyzesTo(analyzer, "b bbb Dd ddd", new String[] { "bbb", "ddd" });
+    }
+
+    @Test
+    public void testCompiledWords() throws IOException {
+        final Path path = Files.createTempFile("stf_", ".fst");
+        CompiledWordSet.write(List.of("B", "dd"), path, true, true);
+        final CompiledWordSet words = CompiledWordSet.open(path);
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new StopTokenSuffixFilter(tokenizer, words));
+            }
+        };
+
+        assertAnalyzesTo(analyzer, "aaa bbb ccc ddd aDD", new String[] { "aaa", "ccc" });
+
+        final Path otherPath = Files.createTempFile("stf_", ".fst");
+        CompiledWordSet.write(List.of("B", "dd"), otherPath, true, false);
+        expectThrows(IllegalArgumentException.class, () -> new StopTokenSuffixFilter(new WhitespaceTokenizer(), CompiledWordSet.open(otherPath)));
+    }
+
+    @Test
+    public void testAllocation() throws IOException {
+        assumeTrue("thread allocation counters are not supported", AllocationMeter.isSupported());
+        final String[] terms = AllocationMeter.repeat(1000, "東京", "で", "Lucene", "データ", "の");
+        final String[] words = { "京", "タ", "E" };
+        assertEquals(0.0, AllocationMeter.bytesPerToken(terms, in -> new StopTokenSuffixFilter(in, words, false)), 1.0);
+        assertEquals(0.0, AllocationMeter.bytesPerToken(terms, in -> new StopTokenSuffixFilter(in, words, true)), 1.0);
+    }
 }